@@ -5,9 +5,14 @@ package durakcardgame;
  * Each card has a suit (e.g., Hearts) and a rank (e.g., 6, 7, Ace).
  */
 public class Card {
+    // Suits and ranks in the order a fresh deck is built, used to give each card a deck index
+    public static final String[] SUITS = {"Hearts", "Diamonds", "Clubs", "Spades"};
+    public static final String[] RANKS = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King", "Ace"};
+
     // Private attributes to ensure encapsulation
     private String suit; // The suit of the card (e.g., Hearts, Diamonds, Clubs, Spades)
     private String rank; // The rank of the card (e.g., 6, 7, Jack, Ace)
+    private final int deckIndex; // Position of the card in a freshly built deck, or -1 if invalid
 
     /**
      * Constructor for creating a new card with a given suit and rank.
@@ -18,6 +23,7 @@ public class Card {
     public Card(String suit, String rank) {
         this.suit = suit;
         this.rank = rank;
+        this.deckIndex = deckIndexOf(suit, rank);
     }
 
     /**
@@ -56,6 +62,56 @@ public class Card {
         return -1; // Invalid rank
     }
 
+    /**
+     * Retrieves the position of the card in a freshly built deck.
+     * Every card maps to a distinct index (0 = 2 of Hearts, 51 = Ace of Spades),
+     * which lets a set of cards be stored as the bits of a single long.
+     *
+     * @return The deck index of the card, or -1 if the suit or rank is invalid.
+     */
+    public int getDeckIndex() {
+        return deckIndex;
+    }
+
+    /**
+     * Looks up the deck index of a suit and rank. Called once per card, by the constructor.
+     */
+    private static int deckIndexOf(String suit, String rank) {
+        for (int s = 0; s < SUITS.length; s++) {
+            if (SUITS[s].equals(suit)) {
+                for (int r = 0; r < RANKS.length; r++) {
+                    if (RANKS[r].equals(rank)) {
+                        return s * RANKS.length + r;
+                    }
+                }
+            }
+        }
+        return -1; // Invalid suit or rank
+    }
+
+    /**
+     * Checks whether this card beats an attacking card under the rules the game enforces:
+     * a higher card of the same suit (by {@link #getRankValue()}) or any card of the trump suit.
+     *
+     * @param attackCard The attacking card.
+     * @param trumpSuit  The trump suit.
+     * @return True if this card is a valid defense against the attack, false otherwise.
+     */
+    public boolean beats(Card attackCard, String trumpSuit) {
+        return (suit.equals(attackCard.getSuit()) && getRankValue() > attackCard.getRankValue())
+                || suit.equals(trumpSuit);
+    }
+
+    /**
+     * Creates the card found at the given position of a freshly built deck.
+     *
+     * @param index The deck index (0-51).
+     * @return The card at that index.
+     */
+    public static Card fromDeckIndex(int index) {
+        return new Card(SUITS[index / RANKS.length], RANKS[index % RANKS.length]);
+    }
+
     /**
      * Provides a string representation of the card in the format "Rank of Suit".
      *
@@ -2,6 +2,7 @@ package durakcardgame;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Random;
 
 /**
  * Represents a deck of cards used in the Durak card game.
@@ -19,17 +20,24 @@ public class Deck {
      */
     public Deck() {
         this.cards = new ArrayList<>(); // Initialize the deck
-        String[] suits = {"Hearts", "Diamonds", "Clubs", "Spades"};
-        String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "Jack", "Queen", "King", "Ace"};
-
         // Populate the deck with all combinations of suits and ranks
-        for (String suit : suits) {
-            for (String rank : ranks) {
+        for (String suit : Card.SUITS) {
+            for (String rank : Card.RANKS) {
                 cards.add(new Card(suit, rank)); // Create and add a new card to the deck
             }
         }
     }
 
+    /**
+     * Constructs a deck holding the given cards in order, top card first.
+     * Used to restore a deck saved with {@link #getCards()}.
+     *
+     * @param cards The cards of the deck.
+     */
+    public Deck(ArrayList<Card> cards) {
+        this.cards = cards;
+    }
+
     /**
      * Shuffles the deck using the Collections.shuffle method.
      * Ensures that the card order is randomized for fair gameplay.
@@ -38,6 +46,16 @@ public class Deck {
         Collections.shuffle(cards);
     }
 
+    /**
+     * Shuffles the deck with the given source of randomness.
+     * Using a seeded Random makes the deal reproducible, which simulations rely on.
+     *
+     * @param random The source of randomness.
+     */
+    public void shuffle(Random random) {
+        Collections.shuffle(cards, random);
+    }
+
     /**
      * Draws a card from the top of the deck.
      *
@@ -66,6 +84,15 @@ public class Deck {
         return cards.size();
     }
 
+    /**
+     * Returns the cards remaining in the deck, top card first.
+     *
+     * @return The list of cards in the deck.
+     */
+    public ArrayList<Card> getCards() {
+        return cards;
+    }
+
     /**
      * Checks if the deck is empty.
      *
@@ -1,14 +1,44 @@
 package durakcardgame;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
  * The main class for running the Durak card game.
  * It initializes the game, collects player information, and starts the gameplay.
+ * If a journal path is given as the first argument, the game is recorded in log segments
+ * named after it and an unfinished game found there is resumed instead of starting a new one.
  */
 public class DurakCardGame {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            try (TableJournal journal = new TableJournal(Path.of(args[0]))) {
+                Map<Long, DurakGame> tables = journal.getRecoveredTables();
+                if (tables.isEmpty()) {
+                    DurakGame game = createGame();
+                    game.attachJournal(journal, 1);
+                    game.play();
+                } else {
+                    System.out.println("Resuming unfinished game from " + args[0]);
+                    tables.values().iterator().next().play();
+                }
+            }
+            return;
+        }
+
+        // Start the gameplay
+        createGame().play();
+    }
+
+    /**
+     * Collects player information and creates a new game.
+     *
+     * @return The new game.
+     */
+    private static DurakGame createGame() {
         Scanner scanner = new Scanner(System.in);
 
         // Welcome message
@@ -32,9 +62,6 @@ public class DurakCardGame {
         }
 
         // Create and initialize the Durak game
-        DurakGame game = new DurakGame("Durak", playerNames);
-
-        // Start the gameplay
-        game.play();
+        return new DurakGame("Durak", playerNames);
     }
 }
@@ -1,7 +1,16 @@
 package durakcardgame;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
 
@@ -11,12 +20,28 @@ import java.util.Set;
  */
 
 public class DurakGame extends Game {
+    private static final int SNAPSHOT_INTERVAL = 5; // Rounds between snapshots of a journaled table
+    private static final int STATE_VERSION = 1; // Format version written at the start of writeState()
+
     private Deck deck; // The deck of cards for the game
     private Card trumpCard; // The trump card that determines the trump suit
     private int attackerIndex; // The index of the current attacker
     private int defenderIndex; // The index of the current defender
+    private int firstAttackerIndex; // The index of the player who made the first attack
     private ArrayList<Card> tableCards; // Cards currently on the table
     private boolean defenderSkipped = false; // Tracks if the defender chose to skip their turn
+    private TableJournal journal; // The journal recording this table, or null if it is not journaled
+    private long tableId; // The id of this table in the journal
+    private int roundsSinceSnapshot = 0; // Rounds played since the last snapshot was journaled
+    private ArrayDeque<Integer> replayMoves = new ArrayDeque<>(); // Journaled moves to replay before reading input
+    private SpectatorChannel spectators; // Channel receiving the public events of this table, or null if none
+    private byte[] roundStart; // State at the start of the current round, or null before the first round
+    private ArrayList<Integer> roundMoves = new ArrayList<>(); // Moves read since roundStart
+    private ArrayDeque<Integer> submittedMoves = new ArrayDeque<>(); // Moves waiting for advance()
+    private boolean driven = false; // True while advance() is playing the table
+    private boolean playing = false; // True while play() is running
+    private boolean replaying = false; // True until the first move that was not played before is read
+    private boolean rewound = false; // True after rewindRound() until the round is started again
 
    /**
      * Initializes the Durak game with the specified name and player names.
@@ -26,9 +51,32 @@ public class DurakGame extends Game {
      */
     
     public DurakGame(String name, String[] playerNames) {
+        this(name, playerNames, new Random());
+    }
+
+    /**
+     * Initializes the Durak game, shuffling the deck with the given source of randomness.
+     * A seeded Random deals the same cards every time.
+     *
+     * @param name        The name of the game.
+     * @param playerNames The names of the players participating.
+     * @param random      The source of randomness for the shuffle.
+     */
+    public DurakGame(String name, String[] playerNames, Random random) {
+        this(name, playerNames, shuffledDeck(random));
+    }
+
+    /**
+     * Initializes the Durak game with a deck in a chosen order. The top card becomes the
+     * trump card, then each player in turn is dealt the next six cards.
+     *
+     * @param name        The name of the game.
+     * @param playerNames The names of the players participating.
+     * @param deck        The deck, top card first.
+     */
+    protected DurakGame(String name, String[] playerNames, Deck deck) {
         super(name);
-        this.deck = new Deck(); // Create a new deck
-        this.deck.shuffle(); // Shuffle the deck
+        this.deck = deck;
         this.trumpCard = deck.drawCard(); // Draw the trump card
         deck.addTrumpCardBack(trumpCard); // Place the trump card at the bottom of the deck
         System.out.println("Trump card: " + trumpCard);
@@ -52,6 +100,283 @@ public class DurakGame extends Game {
         determineFirstAttacker(); // Determine the first attacker
     }
 
+    /**
+     * Creates a new deck shuffled with the given source of randomness.
+     */
+    private static Deck shuffledDeck(Random random) {
+        Deck deck = new Deck();
+        deck.shuffle(random);
+        return deck;
+    }
+
+    /**
+     * Creates an empty game, without players or cards.
+     * Used by {@link #readState(DataInputStream)} to restore a table.
+     *
+     * @param name The name of the game.
+     */
+    private DurakGame(String name) {
+        super(name);
+        this.tableCards = new ArrayList<>();
+    }
+
+    /**
+     * Starts recording this table in a journal. A snapshot of the current state is
+     * written immediately, followed by every move and a new snapshot every few rounds.
+     *
+     * @param journal The journal to write to.
+     * @param tableId The id of this table in the journal.
+     */
+    public void attachJournal(TableJournal journal, long tableId) {
+        this.journal = journal;
+        this.tableId = tableId;
+        journal.appendSnapshot(tableId, this);
+    }
+
+    /**
+     * Starts publishing this table's public events to a spectator channel.
+     * Spectators only ever see the public view of the table, never the players' hands.
+     *
+     * @param spectators The channel to publish to.
+     */
+    public void attachSpectators(SpectatorChannel spectators) {
+        this.spectators = spectators;
+        announce("Spectating " + getName() + ".");
+    }
+
+    /**
+     * Reattaches a table restored from a journal and queues the moves that were
+     * logged after its snapshot, so that play() replays them before reading input.
+     *
+     * @param journal The journal the table was restored from.
+     * @param tableId The id of this table in the journal.
+     * @param moves   The moves logged after the snapshot.
+     */
+    void resumeFromJournal(TableJournal journal, long tableId, List<Integer> moves) {
+        this.journal = journal;
+        this.tableId = tableId;
+        resumeRound(moves);
+    }
+
+    /**
+     * Queues moves that were already played from the current state, so that play()
+     * replays them before reading input. Spectators are not shown the replayed moves again.
+     *
+     * @param moves The moves to replay.
+     */
+    void resumeRound(List<Integer> moves) {
+        replayMoves.addAll(moves);
+        replaying = true;
+    }
+
+    /**
+     * Queues a player's move for a table that is driven by {@link #advance()} instead of
+     * reading the console. Moves are used in the order they are submitted.
+     *
+     * @param move The index of the card chosen, or -1, as the player would have typed it.
+     */
+    public void submitMove(int move) {
+        submittedMoves.add(move);
+    }
+
+    /**
+     * Plays the table as far as the submitted moves allow, without waiting for input.
+     * When a move is needed and none has been submitted, the table is rewound to the start
+     * of the current round and the moves of the round so far are kept to be replayed on the
+     * next call. Between calls the table is therefore idle and can be parked.
+     *
+     * @return True if the game is over, false if the table is waiting for another move.
+     */
+    public boolean advance() {
+        driven = true;
+        try {
+            play();
+            return true;
+        } catch (AwaitingMove e) {
+            rewindRound();
+            return false;
+        } finally {
+            driven = false;
+        }
+    }
+
+    /**
+     * Restores the state at the start of the current round and queues the round's moves
+     * to be replayed.
+     */
+    private void rewindRound() {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(roundStart));
+            in.readUnsignedByte(); // The version is always the current one
+            in.readUTF(); // The name does not change
+            readTable(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        replayMoves.addAll(roundMoves);
+        roundMoves.clear();
+        replaying = true;
+        rewound = true;
+    }
+
+    /**
+     * Checks whether play() is running, in which case the table's state is incomplete.
+     *
+     * @return True if the table is being played.
+     */
+    boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Returns the state of the table at the start of the current round, in the format of
+     * {@link #writeState(DataOutputStream)}. Together with {@link #getMovesSinceRoundStart()}
+     * it describes the table completely, even in the middle of a round.
+     *
+     * @return The encoded state.
+     */
+    byte[] getRoundStartState() {
+        return roundStart != null ? roundStart : encodeState();
+    }
+
+    /**
+     * Returns the moves played since {@link #getRoundStartState()}, including any still
+     * waiting to be replayed.
+     *
+     * @return The moves, oldest first.
+     */
+    List<Integer> getMovesSinceRoundStart() {
+        List<Integer> moves = new ArrayList<>(roundMoves);
+        moves.addAll(replayMoves);
+        return moves;
+    }
+
+    /**
+     * Returns the moves submitted with {@link #submitMove(int)} that have not been played yet.
+     *
+     * @return The moves, oldest first.
+     */
+    List<Integer> getSubmittedMoves() {
+        return new ArrayList<>(submittedMoves);
+    }
+
+    /**
+     * Returns the journal recording this table.
+     *
+     * @return The journal, or null if the table is not journaled.
+     */
+    TableJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the id of this table in its journal.
+     *
+     * @return The table id.
+     */
+    long getTableId() {
+        return tableId;
+    }
+
+    /**
+     * Writes the complete state of the table between rounds: the players and their hands,
+     * the deck, the trump card, the table and whose turn it is. Cards are written as their
+     * deck index. The state starts with its format version, {@link #STATE_VERSION}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the state cannot be written.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeByte(STATE_VERSION);
+        out.writeUTF(getName());
+        out.writeByte(getPlayers().size());
+        for (Player player : getPlayers()) {
+            out.writeUTF(player.getName());
+            writeCards(out, ((DurakPlayer) player).getHand());
+        }
+        writeCards(out, deck.getCards());
+        out.writeByte(trumpCard.getDeckIndex());
+        writeCards(out, tableCards);
+        out.writeByte(attackerIndex);
+        out.writeByte(defenderIndex);
+        out.writeByte(firstAttackerIndex);
+        out.writeBoolean(defenderSkipped);
+    }
+
+    /**
+     * Restores a table written by {@link #writeState(DataOutputStream)}.
+     *
+     * @param in The stream to read from.
+     * @return The restored game.
+     * @throws IOException If the state cannot be read or was written in another format version.
+     */
+    public static DurakGame readState(DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != STATE_VERSION) {
+            throw new IOException("Unsupported table state version " + version);
+        }
+        DurakGame game = new DurakGame(in.readUTF());
+        game.readTable(in);
+        return game;
+    }
+
+    /**
+     * Replaces the players, cards and turn order of this game with those written by
+     * {@link #writeState(DataOutputStream)}, after the version and the name.
+     */
+    private void readTable(DataInputStream in) throws IOException {
+        getPlayers().clear();
+        int playerCount = in.readUnsignedByte();
+        for (int i = 0; i < playerCount; i++) {
+            DurakPlayer player = new DurakPlayer(in.readUTF());
+            player.takeCards(readCards(in));
+            addPlayer(player);
+        }
+        deck = new Deck(readCards(in));
+        trumpCard = Card.fromDeckIndex(in.readUnsignedByte());
+        tableCards.clear();
+        tableCards.addAll(readCards(in));
+        attackerIndex = in.readUnsignedByte();
+        defenderIndex = in.readUnsignedByte();
+        firstAttackerIndex = in.readUnsignedByte();
+        defenderSkipped = in.readBoolean();
+    }
+
+    /**
+     * Encodes the current state with {@link #writeState(DataOutputStream)}.
+     */
+    private byte[] encodeState() {
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        try {
+            writeState(new DataOutputStream(state));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state.toByteArray();
+    }
+
+    /**
+     * Writes a list of cards as a count followed by each card's deck index.
+     */
+    private static void writeCards(DataOutputStream out, List<Card> cards) throws IOException {
+        out.writeByte(cards.size());
+        for (Card card : cards) {
+            out.writeByte(card.getDeckIndex());
+        }
+    }
+
+    /**
+     * Reads a list of cards written by {@link #writeCards(DataOutputStream, List)}.
+     */
+    private static ArrayList<Card> readCards(DataInputStream in) throws IOException {
+        int count = in.readUnsignedByte();
+        ArrayList<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.fromDeckIndex(in.readUnsignedByte()));
+        }
+        return cards;
+    }
+
     /**
      * Determines the first attacker based on the smallest trump card.
      */
@@ -82,6 +407,7 @@ public class DurakGame extends Game {
             defenderIndex = 1;
             System.out.println(getPlayers().get(attackerIndex).getName() + " is the first attacker by default.");
         }
+        firstAttackerIndex = attackerIndex;
     }
 
     /**
@@ -90,9 +416,25 @@ public class DurakGame extends Game {
 
     @Override
     public void play() {
-        Scanner scanner = new Scanner(System.in);
+        if (playing) {
+            throw new IllegalStateException("The table is already being played");
+        }
+        playing = true;
+        try {
+            playRounds(new Scanner(System.in));
+        } finally {
+            playing = false;
+        }
+    }
 
+    /**
+     * Plays rounds until the game is over.
+     *
+     * @param scanner Scanner object for user input.
+     */
+    private void playRounds(Scanner scanner) {
         while (!isGameOver()) {
+            checkpoint();
             displayCurrentHands();
 
             DurakPlayer attacker = (DurakPlayer) getPlayers().get(attackerIndex);
@@ -107,6 +449,7 @@ public class DurakGame extends Game {
 
             System.out.println(attacker.getName() + " is attacking " + defender.getName() + ".");
             tableCards.clear();
+            announce(attacker.getName() + " is attacking " + defender.getName() + ".");
 
             boolean roundInProgress = true;
 
@@ -115,7 +458,7 @@ public class DurakGame extends Game {
                     System.out.println(attacker.getName() + "'s hand: " + attacker.showHand());
                     System.out.println("Cards on the table: " + tableCards);
                     System.out.print(attacker.getName() + ", choose a card to attack with (index, or -1 to skip): ");
-                    int attackIndex = scanner.nextInt();
+                    int attackIndex = chooseAttack(scanner, attacker);
 
                     if (attackIndex == -1) {
                         System.out.println(attacker.getName() + " ends their attack.");
@@ -129,6 +472,7 @@ public class DurakGame extends Game {
                         System.out.println("Invalid card! Try again.");
                     } else {
                         tableCards.add(attackCard);
+                        announce(attacker.getName() + " attacks with " + attackCard + ".");
                     }
                 }
 
@@ -137,13 +481,14 @@ public class DurakGame extends Game {
                         System.out.println("Cards on the table: " + tableCards);
                         System.out.println(defender.getName() + "'s hand: " + defender.showHand());
                         System.out.print(defender.getName() + ", choose a card to defend with (index, or -1 to pick up): ");
-                        int defendIndex = scanner.nextInt();
+                        int defendIndex = chooseDefense(scanner, defender);
 
                         if (defendIndex == -1) { // Defender gives up
                             System.out.println(defender.getName() + " picks up all cards.");
                             defender.takeCards(new ArrayList<>(tableCards));
                             tableCards.clear();
                             defenderSkipped = true;
+                            announce(defender.getName() + " picks up all cards.");
                             askOtherPlayersToAddCards(scanner, defender);
                             roundInProgress = false;
                             break;
@@ -153,6 +498,7 @@ public class DurakGame extends Game {
                         if (isValidDefense(tableCards.get(tableCards.size() - 1), defendCard)) {
                             System.out.println("Successful defense!");
                             tableCards.add(defendCard);
+                            announce(defender.getName() + " defends with " + defendCard + ".");
                             break;
                         } else {
                             System.out.println("Invalid defense card! Try again.");
@@ -170,6 +516,106 @@ public class DurakGame extends Game {
         }
 
         declareWinner(); // End the game and declare the winner
+        if (journal != null) {
+            journal.appendFinish(tableId); // The table no longer needs to be recovered
+        }
+    }
+
+    /**
+     * Asks the attacker which card to attack with.
+     * Subclasses can override this to let a computer player decide.
+     *
+     * @param scanner  Scanner object for user input.
+     * @param attacker The attacking player.
+     * @return The index of the card in the attacker's hand, or -1 to end the attack.
+     */
+    protected int chooseAttack(Scanner scanner, DurakPlayer attacker) {
+        return nextMove(scanner);
+    }
+
+    /**
+     * Asks the defender which card to beat the last attack with.
+     * Subclasses can override this to let a computer player decide.
+     *
+     * @param scanner  Scanner object for user input.
+     * @param defender The defending player.
+     * @return The index of the card in the defender's hand, or -1 to pick up.
+     */
+    protected int chooseDefense(Scanner scanner, DurakPlayer defender) {
+        return nextMove(scanner);
+    }
+
+    /**
+     * Asks another player which card to add to the table.
+     * Subclasses can override this to let a computer player decide.
+     *
+     * @param scanner Scanner object for user input.
+     * @param player  The player who may add a card.
+     * @return The index of the card in the player's hand, or -1 to skip.
+     */
+    protected int chooseThrow(Scanner scanner, DurakPlayer player) {
+        return nextMove(scanner);
+    }
+
+    /**
+     * Reads the next move, replaying moves that were already played first. New moves come
+     * from {@link #submitMove(int)} while the table is driven by {@link #advance()}, and
+     * from the console otherwise; they are journaled before they are applied.
+     *
+     * @param scanner Scanner object for user input.
+     * @return The index entered by the player.
+     * @throws AwaitingMove If the table is driven and no move has been submitted.
+     */
+    private int nextMove(Scanner scanner) {
+        int move;
+        if (!replayMoves.isEmpty()) {
+            move = replayMoves.poll();
+        } else {
+            if (!driven) {
+                move = scanner.nextInt();
+            } else if (!submittedMoves.isEmpty()) {
+                move = submittedMoves.poll();
+            } else {
+                throw new AwaitingMove();
+            }
+            replaying = false;
+            if (journal != null) {
+                journal.appendMove(tableId, move);
+            }
+        }
+        roundMoves.add(move);
+        return move;
+    }
+
+    /**
+     * Records the state at the start of a round, unless moves from an earlier point are
+     * still being replayed. Also journals a snapshot of the table every few rounds, so
+     * recovery replays only the moves of the last few rounds. No snapshot is taken while
+     * journaled moves are still being replayed, because those moves would be lost behind it.
+     * Finally calls {@link #onRoundStart()}. None of this is repeated when a rewound round
+     * is played again.
+     */
+    private void checkpoint() {
+        if (rewound) { // The round was already started before the table was rewound
+            rewound = false;
+            return;
+        }
+        if (roundStart == null || replayMoves.isEmpty()) {
+            roundStart = encodeState();
+            roundMoves.clear();
+        }
+        if (journal != null && ++roundsSinceSnapshot >= SNAPSHOT_INTERVAL && replayMoves.isEmpty()) {
+            journal.appendSnapshot(tableId, this);
+            roundsSinceSnapshot = 0;
+        }
+        onRoundStart();
+    }
+
+    /**
+     * Called at the start of every round, before the attack. Does nothing by default;
+     * subclasses can override this to count rounds or to look at the table.
+     */
+    protected void onRoundStart() {
     }
     
     /**
@@ -188,7 +634,7 @@ public class DurakGame extends Game {
                 System.out.println("Cards on the table: " + tableCards);
                 System.out.println(addingPlayer.getName() + "'s hand: " + addingPlayer.showHand());
                 System.out.print(addingPlayer.getName() + ", do you want to add a card? (index, or -1 to skip): ");
-                int throwIndex = scanner.nextInt();
+                int throwIndex = chooseThrow(scanner, addingPlayer);
 
                 if (throwIndex == -1) { // Player chooses to skip
                     alreadyAsked.add(addingPlayer);
@@ -199,6 +645,7 @@ public class DurakGame extends Game {
                 if (throwCard != null && isValidThrow(throwCard)) { // Validate the added card
                     tableCards.add(throwCard);
                     cardsAdded = true;
+                    announce(addingPlayer.getName() + " adds " + throwCard + ".");
                     System.out.println("Cards on the table: " + tableCards);
                 } else { // Invalid card logic
                     System.out.println("Invalid card for throwing! Try again.");
@@ -230,7 +677,7 @@ public class DurakGame extends Game {
                 System.out.println(addingPlayer.getName() + "'s hand: " + addingPlayer.showHand());
                 System.out.println("Cards on the table: " + tableCards);
                 System.out.print(addingPlayer.getName() + ", do you want to add a card? (index, or -1 to skip): ");
-                int throwIndex = scanner.nextInt();
+                int throwIndex = chooseThrow(scanner, addingPlayer);
 
                 if (throwIndex == -1) { // Player chooses to skip
                     alreadyAsked.add(addingPlayer);
@@ -241,6 +688,7 @@ public class DurakGame extends Game {
                 if (throwCard != null && isValidThrow(throwCard)) { // Validate the added card
                     tableCards.add(throwCard);
                     cardsAdded = true;
+                    announce(addingPlayer.getName() + " adds " + throwCard + ".");
                     System.out.println("Cards on the table: " + tableCards);
                 } else { // Invalid card logic
                     System.out.println("Invalid card for throwing! Try again.");
@@ -269,18 +717,87 @@ public class DurakGame extends Game {
         System.out.println("---------------------");
     }
 
+    /**
+     * Builds the public view of the table: what every spectator is allowed to see.
+     * Hands are shown only as card counts.
+     *
+     * @return The public view of the table.
+     */
+    public String publicView() {
+        StringBuilder view = new StringBuilder();
+        view.append("Trump card: ").append(trumpCard)
+                .append(" | Cards in deck: ").append(deck.getRemainingCards()).append('\n');
+        for (Player player : getPlayers()) {
+            view.append(player.getName()).append(": ")
+                    .append(((DurakPlayer) player).getHandSize()).append(" cards\n");
+        }
+        view.append("Cards on the table: ").append(tableCards);
+        return view.toString();
+    }
+
+    /**
+     * Publishes an event followed by the public view of the table to the spectators, if any.
+     *
+     * @param event The description of what just happened.
+     */
+    private void announce(String event) {
+        if (spectators != null && !replaying) { // Replayed events were published the first time
+            spectators.publish(event + "\n" + publicView());
+        }
+    }
+
     /**
      * Declares the winner of the game. The last player with cards is the "Durak" (loser).
      */
     @Override
     public void declareWinner() {
         System.out.println("Game over!");
+        DurakPlayer durak = getDurak(); // The player still holding cards
+        if (durak != null) {
+            System.out.println(durak.getName() + " is the Durak (loser)!");
+            announce("Game over! " + durak.getName() + " is the Durak (loser)!");
+        }
+    }
+
+    /**
+     * Retrieves the cards currently on the table.
+     *
+     * @return The list of cards on the table.
+     */
+    public ArrayList<Card> getTableCards() {
+        return tableCards;
+    }
+
+    /**
+     * Retrieves the trump card.
+     *
+     * @return The trump card.
+     */
+    public Card getTrumpCard() {
+        return trumpCard;
+    }
+
+    /**
+     * Retrieves the index of the player who made the first attack.
+     *
+     * @return The index of the first attacker in the list of players.
+     */
+    public int getFirstAttackerIndex() {
+        return firstAttackerIndex;
+    }
+
+    /**
+     * Finds the Durak (loser): the first player still holding cards once the game is over.
+     *
+     * @return The Durak, or null if nobody has cards left.
+     */
+    public DurakPlayer getDurak() {
         for (Player player : getPlayers()) {
-            if (((DurakPlayer) player).getHandSize() > 0) { // Check if the player still has cards
-                System.out.println(player.getName() + " is the Durak (loser)!");
-                return;
+            if (((DurakPlayer) player).getHandSize() > 0) {
+                return (DurakPlayer) player;
             }
         }
+        return null;
     }
 
     /**
@@ -290,10 +807,8 @@ public class DurakGame extends Game {
      * @param defendCard The defending card.
      * @return True if the defense is valid, false otherwise.
      */
-    private boolean isValidDefense(Card attackCard, Card defendCard) {
-        return defendCard != null &&
-                ((defendCard.getSuit().equals(attackCard.getSuit()) && defendCard.getRankValue() > attackCard.getRankValue())
-                        || defendCard.getSuit().equals(trumpCard.getSuit()));
+    protected boolean isValidDefense(Card attackCard, Card defendCard) {
+        return defendCard != null && defendCard.beats(attackCard, trumpCard.getSuit());
     }
 
     /**
@@ -302,7 +817,7 @@ public class DurakGame extends Game {
      * @param card The card to be validated.
      * @return True if the card is valid for throwing, false otherwise.
      */
-    private boolean isValidThrow(Card card) {
+    protected boolean isValidThrow(Card card) {
         for (Card tableCard : tableCards) {
             if (tableCard.getRank().equals(card.getRank())) { // Check if ranks match any card on the table
                 return true;
@@ -338,4 +853,16 @@ public class DurakGame extends Game {
         }
         return playersWithCards <= 1; // Game ends if only one player has cards
     }
+
+    /**
+     * Thrown inside play() when a table driven by {@link #advance()} needs a move
+     * that has not been submitted yet.
+     */
+    private static class AwaitingMove extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private AwaitingMove() {
+            super(null, null, false, false); // Control flow only, so no stack trace
+        }
+    }
 }
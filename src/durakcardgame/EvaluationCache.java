@@ -0,0 +1,292 @@
+package durakcardgame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of position evaluations for computer players.
+ * A position is keyed by the cards in hand and on the table (stored as 52-bit masks),
+ * the trump suit and the number of cards the player has not yet seen.
+ * Keys and values are kept in primitive arrays, so lookups never box.
+ *
+ * The cache is split into small sets of slots. Each set evicts with the CLOCK algorithm:
+ * a hit marks a slot as referenced, and the clock hand skips (and clears) referenced
+ * slots before evicting the first one that was not used since the last sweep.
+ */
+public class EvaluationCache {
+    private static final int WAYS = 8; // Number of slots per set
+    private static final int LOCK_STRIPES = 64; // Number of locks shared between the sets
+    private static final int FILE_MAGIC = 0x44524B43; // Marks a saved hot set ("DRKC")
+
+    private final int setMask; // Used to map a hash to a set
+    private final long[] handMasks; // Hand mask of each slot
+    private final long[] tableMasks; // Table mask of each slot
+    private final int[] situations; // Trump suit and unseen count of each slot, 0 if the slot is empty
+    private final int[] values; // Cached evaluation of each slot
+    private final boolean[] referenced; // CLOCK reference bit of each slot
+    private final byte[] clockHands; // Next slot to examine for eviction in each set
+    private final Object[] locks; // Lock stripes guarding the sets
+
+    private final LongAdder hits = new LongAdder(); // Lookups that found an entry
+    private final LongAdder misses = new LongAdder(); // Lookups that found nothing
+    private final LongAdder evictions = new LongAdder(); // Entries replaced to make room
+
+    /**
+     * Creates a cache that holds at least the given number of evaluations.
+     * The capacity is rounded up to a power of two.
+     *
+     * @param capacity The minimum number of evaluations to keep.
+     */
+    public EvaluationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int needed = (capacity + WAYS - 1) / WAYS;
+        int sets = needed <= 1 ? 1 : Integer.highestOneBit(needed - 1) << 1;
+        this.setMask = sets - 1;
+        this.handMasks = new long[sets * WAYS];
+        this.tableMasks = new long[sets * WAYS];
+        this.situations = new int[sets * WAYS];
+        this.values = new int[sets * WAYS];
+        this.referenced = new boolean[sets * WAYS];
+        this.clockHands = new byte[sets];
+        this.locks = new Object[Math.min(sets, LOCK_STRIPES)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Builds a mask with one bit set for each card, using the card's deck index.
+     *
+     * @param cards The cards to include.
+     * @return The mask of the cards.
+     */
+    public static long maskOf(List<Card> cards) {
+        long mask = 0L;
+        for (Card card : cards) {
+            mask |= 1L << card.getDeckIndex();
+        }
+        return mask;
+    }
+
+    /**
+     * Looks up the evaluation of a position.
+     *
+     * @param handMask     Mask of the cards in hand.
+     * @param tableMask    Mask of the cards on the table.
+     * @param trumpSuit    Index of the trump suit in {@link Card#SUITS}.
+     * @param unseenCount  Number of cards not yet seen by the player.
+     * @param defaultValue The value to return if the position is not cached.
+     * @return The cached evaluation, or defaultValue if there is none.
+     */
+    public int get(long handMask, long tableMask, int trumpSuit, int unseenCount, int defaultValue) {
+        int situation = situation(trumpSuit, unseenCount);
+        int set = setOf(handMask, tableMask, situation);
+        synchronized (locks[set % locks.length]) {
+            int slot = find(set, handMask, tableMask, situation);
+            if (slot >= 0) {
+                referenced[slot] = true;
+                hits.increment();
+                return values[slot];
+            }
+        }
+        misses.increment();
+        return defaultValue;
+    }
+
+    /**
+     * Stores the evaluation of a position, evicting an older entry if its set is full.
+     *
+     * @param handMask    Mask of the cards in hand.
+     * @param tableMask   Mask of the cards on the table.
+     * @param trumpSuit   Index of the trump suit in {@link Card#SUITS}.
+     * @param unseenCount Number of cards not yet seen by the player.
+     * @param value       The evaluation to store.
+     */
+    public void put(long handMask, long tableMask, int trumpSuit, int unseenCount, int value) {
+        int situation = situation(trumpSuit, unseenCount);
+        int set = setOf(handMask, tableMask, situation);
+        synchronized (locks[set % locks.length]) {
+            int slot = find(set, handMask, tableMask, situation);
+            if (slot < 0) {
+                slot = victim(set);
+                handMasks[slot] = handMask;
+                tableMasks[slot] = tableMask;
+                situations[slot] = situation;
+            }
+            values[slot] = value;
+            referenced[slot] = true;
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a cached evaluation.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found nothing.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries that were evicted to make room for new ones.
+     *
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the maximum number of evaluations the cache can hold.
+     *
+     * @return The capacity of the cache.
+     */
+    public int getCapacity() {
+        return situations.length;
+    }
+
+    /**
+     * Writes the hot set (entries used since the last CLOCK sweep) to a file,
+     * so that a restarted server can start with a warm cache. The entries are written to a
+     * temporary file that then replaces the target, so a crash never leaves a partial file.
+     *
+     * @param file The file to write.
+     * @return The number of entries written.
+     * @throws IOException If the file cannot be written.
+     */
+    public int saveHotSet(Path file) throws IOException {
+        int written = 0;
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(FILE_MAGIC);
+            for (int set = 0; set <= setMask; set++) {
+                synchronized (locks[set % locks.length]) {
+                    for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                        if (situations[slot] != 0 && referenced[slot]) {
+                            out.writeLong(handMasks[slot]);
+                            out.writeLong(tableMasks[slot]);
+                            out.writeInt(situations[slot]);
+                            out.writeInt(values[slot]);
+                            written++;
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Loads entries previously written by {@link #saveHotSet(Path)} into the cache.
+     *
+     * @param file The file to read.
+     * @return The number of entries loaded.
+     * @throws IOException If the file cannot be read, is not a saved hot set or ends inside an entry.
+     */
+    public int loadHotSet(Path file) throws IOException {
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not an evaluation cache file: " + file);
+            }
+            while (true) {
+                long handMask;
+                try {
+                    handMask = in.readLong();
+                } catch (EOFException e) {
+                    break; // End of file between entries
+                }
+                long tableMask = in.readLong();
+                int situation = in.readInt();
+                int value = in.readInt();
+                put(handMask, tableMask, (situation >>> 8) & 0xFF, situation & 0xFF, value);
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Packs the trump suit and unseen count into one int. The extra high bit
+     * keeps a used slot from ever looking empty.
+     */
+    private static int situation(int trumpSuit, int unseenCount) {
+        return 1 << 16 | (trumpSuit & 0xFF) << 8 | (unseenCount & 0xFF);
+    }
+
+    /**
+     * Chooses the set for a key by mixing all parts of the key. The combined key goes
+     * through MurmurHash3's 64-bit finalizer, so every card bit reaches the low bits
+     * that pick the set; without it, hands differing only in high cards share a set.
+     */
+    private int setOf(long handMask, long tableMask, int situation) {
+        long h = handMask * 0x9E3779B97F4A7C15L;
+        h ^= Long.rotateLeft(tableMask * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= situation * 0x165667B19E3779F9L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & setMask;
+    }
+
+    /**
+     * Finds the slot holding a key within a set.
+     *
+     * @return The slot index, or -1 if the key is not in the set.
+     */
+    private int find(int set, long handMask, long tableMask, int situation) {
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (situations[slot] == situation && handMasks[slot] == handMask && tableMasks[slot] == tableMask) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Picks the slot of a set to reuse: an empty slot if there is one, otherwise
+     * the first unreferenced slot reached by the clock hand.
+     *
+     * @return The slot to reuse.
+     */
+    private int victim(int set) {
+        int base = set * WAYS;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (situations[slot] == 0) {
+                return slot;
+            }
+        }
+        while (true) {
+            int slot = base + clockHands[set];
+            clockHands[set] = (byte) ((clockHands[set] + 1) % WAYS);
+            if (!referenced[slot]) {
+                evictions.increment();
+                return slot;
+            }
+            referenced[slot] = false; // Give the slot a second chance
+        }
+    }
+}
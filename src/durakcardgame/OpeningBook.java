@@ -0,0 +1,453 @@
+package durakcardgame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A precomputed table of the best opening attack for every six-card starting hand.
+ * The first attack is made right after the deal, so it can be looked up instead of searched.
+ *
+ * Hands are reduced by suit isomorphism before lookup: the trump suit always becomes
+ * suit 0 and the other three suits are sorted by the ranks they hold, so hands that only
+ * differ by a relabelling of non-trump suits share one entry. Only reduced hands are stored.
+ * A bitmap over the colex ranks of all six-card masks marks which ones are reduced, with a
+ * running count every 64 ranks, so a hand's position among the reduced hands is found in
+ * constant time. Each entry is four bits: the position (0-5) of the attack card within the
+ * reduced hand, lowest card first. The whole table is read from a memory-mapped file.
+ */
+public class OpeningBook {
+    private static final int HAND_SIZE = 6; // Number of cards dealt to each player
+    private static final int DECK_SIZE = Card.SUITS.length * Card.RANKS.length; // Cards in the deck
+    private static final int SUIT_BITS = Card.RANKS.length; // Bits used by each suit in a card mask
+    private static final long SUIT_MASK = (1L << SUIT_BITS) - 1;
+    private static final int FILE_MAGIC = 0x44524B50; // Marks an opening book file ("DRKP")
+    private static final int HEADER_SIZE = 12; // Magic number, hand count and reduced hand count
+    private static final int BLOCK_BITS = 64; // Colex ranks covered by each bitmap word
+    private static final int PLAYOUT_PLAYERS = 2; // Table size of the games used to check the book
+
+    // Binomial coefficients C(n, k) for n up to the deck size and k up to the hand size
+    private static final long[][] BINOMIAL = new long[DECK_SIZE + 1][HAND_SIZE + 1];
+
+    // For each card of a reduced deck (trump is suit 0), the mask of cards that beat it in this game
+    private static final long[] BEATERS = new long[DECK_SIZE];
+
+    static {
+        for (int n = 0; n <= DECK_SIZE; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, HAND_SIZE); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+        for (int attack = 0; attack < DECK_SIZE; attack++) {
+            for (int defense = 0; defense < DECK_SIZE; defense++) {
+                if (Card.fromDeckIndex(defense).beats(Card.fromDeckIndex(attack), Card.SUITS[0])) {
+                    BEATERS[attack] |= 1L << defense;
+                }
+            }
+        }
+    }
+
+    private static final int HAND_COUNT = (int) BINOMIAL[DECK_SIZE][HAND_SIZE]; // All six-card masks
+    private static final int BLOCKS = (HAND_COUNT + BLOCK_BITS - 1) / BLOCK_BITS; // Bitmap words
+
+    private final ByteBuffer book; // The mapped book file
+    private final int bitmapOffset; // Start of the bitmap words marking reduced hands
+    private final int entryOffset; // Start of the four-bit entries
+
+    /**
+     * Creates a book over an already mapped file.
+     *
+     * @param book The mapped book file.
+     */
+    private OpeningBook(ByteBuffer book) {
+        this.book = book;
+        this.bitmapOffset = HEADER_SIZE + BLOCKS * Integer.BYTES;
+        this.entryOffset = bitmapOffset + BLOCKS * Long.BYTES;
+    }
+
+    /**
+     * Opens a book file written by {@link #build(Path)} by mapping it into memory.
+     *
+     * @param file The book file.
+     * @return The opened book.
+     * @throws IOException If the file cannot be read or is not an opening book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC
+                    || buffer.getInt(4) != HAND_COUNT
+                    || buffer.capacity() != fileSize(buffer.getInt(8))) {
+                throw new IOException("Not an opening book file: " + file);
+            }
+            return new OpeningBook(buffer);
+        }
+    }
+
+    /**
+     * Looks up the best opening attack for a starting hand.
+     *
+     * @param hand      The attacker's hand.
+     * @param trumpSuit The trump suit.
+     * @return The index in the hand of the card to attack with, or -1 if the hand is not in the book.
+     */
+    public int bestAttack(List<Card> hand, String trumpSuit) {
+        int trump = suitIndex(trumpSuit);
+        long mask = EvaluationCache.maskOf(hand);
+        if (hand.size() != HAND_SIZE || trump < 0 || Long.bitCount(mask) != HAND_SIZE) {
+            return -1;
+        }
+
+        int[] suitOrder = new int[Card.SUITS.length];
+        long canonical = canonicalize(mask, trump, suitOrder);
+        int rank = (int) colexRank(canonical);
+        int block = rank / BLOCK_BITS;
+        long bitmap = book.getLong(bitmapOffset + block * Long.BYTES);
+        long bit = 1L << (rank % BLOCK_BITS);
+        if ((bitmap & bit) == 0) {
+            return -1;
+        }
+
+        // Position among the reduced hands, then the four-bit entry stored there
+        int position = book.getInt(HEADER_SIZE + block * Integer.BYTES) + Long.bitCount(bitmap & (bit - 1));
+        int entry = (book.get(entryOffset + position / 2) >>> (position % 2 * 4)) & 0xF;
+
+        // Find the chosen card of the reduced hand and map it back to the real suit it came from
+        long cards = canonical;
+        for (int i = 0; i < entry; i++) {
+            cards &= cards - 1;
+        }
+        int reduced = Long.numberOfTrailingZeros(cards);
+        int realIndex = suitOrder[reduced / SUIT_BITS] * SUIT_BITS + reduced % SUIT_BITS;
+        for (int i = 0; i < hand.size(); i++) {
+            if (hand.get(i).getDeckIndex() == realIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the best opening attack for every reduced starting hand and writes the book.
+     *
+     * @param file The file to write.
+     * @return The number of reduced hands in the book.
+     * @throws IOException If the file cannot be written.
+     */
+    public static int build(Path file) throws IOException {
+        int[] blockRanks = new int[BLOCKS];
+        long[] bitmaps = new long[BLOCKS];
+        byte[] entries = new byte[(HAND_COUNT + 1) / 2];
+        int reducedCount = 0;
+
+        // Visit every six-card mask in increasing order, which is also colex order
+        long mask = (1L << HAND_SIZE) - 1;
+        int[] suitOrder = new int[Card.SUITS.length];
+        for (int rank = 0; rank < HAND_COUNT; rank++) {
+            if (rank % BLOCK_BITS == 0) {
+                blockRanks[rank / BLOCK_BITS] = reducedCount;
+            }
+            if (canonicalize(mask, 0, suitOrder) == mask) {
+                bitmaps[rank / BLOCK_BITS] |= 1L << (rank % BLOCK_BITS);
+                int card = bestAttackCard(mask);
+                int entry = Long.bitCount(mask & ((1L << card) - 1)); // Position of the card in the hand
+                entries[reducedCount / 2] |= (byte) (entry << (reducedCount % 2 * 4));
+                reducedCount++;
+            }
+            mask = nextCombination(mask);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(fileSize(reducedCount));
+        buffer.putInt(FILE_MAGIC).putInt(HAND_COUNT).putInt(reducedCount);
+        for (int blockRank : blockRanks) {
+            buffer.putInt(blockRank);
+        }
+        for (long bitmap : bitmaps) {
+            buffer.putLong(bitmap);
+        }
+        buffer.put(entries, 0, (reducedCount + 1) / 2);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return reducedCount;
+    }
+
+    /**
+     * Computes the size of a book file holding the given number of reduced hands.
+     */
+    private static int fileSize(int reducedCount) {
+        return HEADER_SIZE + BLOCKS * (Integer.BYTES + Long.BYTES) + (reducedCount + 1) / 2;
+    }
+
+    /**
+     * Chooses the opening attack for a reduced hand (trump is suit 0).
+     * Each card is scored by the chance that a defender holding six of the unseen cards
+     * cannot beat it under {@link Card#beats(Card, String)}, minus the value of giving the
+     * card up, so cheap cards the defender is unlikely to beat are preferred. This is a
+     * heuristic: it looks only at the opening card, not at follow-up attacks or throw-ins.
+     * Scoring every hand by playouts is too slow for the whole book, so the heuristic is
+     * instead checked against {@link #playoutScores(long, int, long)} with --check.
+     *
+     * @param hand Mask of the reduced hand.
+     * @return The deck index of the chosen card.
+     */
+    private static int bestAttackCard(long hand) {
+        int unseen = DECK_SIZE - HAND_SIZE;
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (long cards = hand; cards != 0; cards &= cards - 1) {
+            int card = Long.numberOfTrailingZeros(cards);
+            int suit = card / SUIT_BITS;
+            int rank = card % SUIT_BITS;
+
+            int beaterCount = Long.bitCount(BEATERS[card] & ~hand);
+            double notBeaten = (double) BINOMIAL[unseen - beaterCount][HAND_SIZE] / BINOMIAL[unseen][HAND_SIZE];
+            double value = (double) (rank + (suit == 0 ? SUIT_BITS : 0)) / (2 * SUIT_BITS);
+            double score = notBeaten - value;
+            if (score > bestScore) {
+                bestScore = score;
+                best = card;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays out every possible opening of a reduced hand (trump is suit 0) in seeded
+     * two-player {@link SimulatedDurakGame}s. Each playout deals the same unseen cards for
+     * every opening, and only deals where the hand's owner attacks first are used.
+     *
+     * @param hand     Mask of the reduced hand.
+     * @param playouts The number of deals to play each opening on.
+     * @param seed     The seed for the deals.
+     * @return The score of each card of the hand, lowest card first: the share of games the
+     *         hand's owner did not lose, with games stopped at the turn limit counted as half.
+     */
+    static double[] playoutScores(long hand, int playouts, long seed) {
+        int[] handCards = new int[HAND_SIZE];
+        int count = 0;
+        int[] unseen = new int[DECK_SIZE - HAND_SIZE];
+        int unseenCount = 0;
+        for (int card = 0; card < DECK_SIZE; card++) {
+            if ((hand & (1L << card)) != 0) {
+                handCards[count++] = card;
+            } else {
+                unseen[unseenCount++] = card;
+            }
+        }
+
+        double[] scores = new double[HAND_SIZE];
+        Random random = new Random(seed);
+        for (int playout = 0; playout < playouts; playout++) {
+            // Deck order: a trump card, this hand, the opponent's hand, then the rest
+            do {
+                for (int i = unseen.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int swap = unseen[i];
+                    unseen[i] = unseen[j];
+                    unseen[j] = swap;
+                }
+            } while (unseen[0] / SUIT_BITS != 0 || !attacksFirst(hand, unseen));
+
+            for (int opening = 0; opening < HAND_SIZE; opening++) {
+                ArrayList<Card> cards = new ArrayList<>(DECK_SIZE);
+                cards.add(Card.fromDeckIndex(unseen[0]));
+                for (int card : handCards) {
+                    cards.add(Card.fromDeckIndex(card));
+                }
+                for (int i = 1; i < unseen.length; i++) {
+                    cards.add(Card.fromDeckIndex(unseen[i]));
+                }
+                SimulatedDurakGame game = new SimulatedDurakGame(PLAYOUT_PLAYERS, new Deck(cards), cards.get(1 + opening));
+                game.play();
+                DurakPlayer durak = game.getDurak();
+                if (game.isDraw() || durak == null) {
+                    scores[opening] += 0.5;
+                } else if (game.getPlayers().indexOf(durak) != 0) {
+                    scores[opening] += 1.0;
+                }
+            }
+        }
+        for (int opening = 0; opening < HAND_SIZE; opening++) {
+            scores[opening] /= playouts;
+        }
+        return scores;
+    }
+
+    /**
+     * Checks whether the owner of a hand makes the first attack against the opponent dealt
+     * the unseen cards at positions 1-6: the lowest trump attacks first, and the first
+     * player does when nobody holds a trump.
+     */
+    private static boolean attacksFirst(long hand, int[] unseen) {
+        long opponent = 0L;
+        for (int i = 1; i <= HAND_SIZE; i++) {
+            opponent |= 1L << unseen[i];
+        }
+        long ownTrumps = hand & SUIT_MASK;
+        long opponentTrumps = opponent & SUIT_MASK;
+        return opponentTrumps == 0
+                || (ownTrumps != 0 && Long.numberOfTrailingZeros(ownTrumps) < Long.numberOfTrailingZeros(opponentTrumps));
+    }
+
+    /**
+     * Compares the book's heuristic with playouts on randomly dealt hands and prints how
+     * often they pick the same opening and how much the heuristic's picks score.
+     *
+     * @param hands    The number of hands to check.
+     * @param playouts The number of playouts per opening.
+     * @param seed     The seed for the hands and the playouts.
+     */
+    static void checkAgainstPlayouts(int hands, int playouts, long seed) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Games narrate every move
+        int agreed = 0;
+        double bookTotal = 0;
+        double bestTotal = 0;
+        double averageTotal = 0;
+        Random random = new Random(seed);
+        int[] suitOrder = new int[Card.SUITS.length];
+        try {
+            for (int h = 0; h < hands; h++) {
+                long mask = 0L;
+                while (Long.bitCount(mask) < HAND_SIZE) {
+                    mask |= 1L << random.nextInt(DECK_SIZE);
+                }
+                long hand = canonicalize(mask, 0, suitOrder);
+                int bookCard = bestAttackCard(hand);
+                int bookPosition = Long.bitCount(hand & ((1L << bookCard) - 1));
+
+                double[] scores = playoutScores(hand, playouts, random.nextLong());
+                int best = 0;
+                double sum = 0;
+                for (int i = 0; i < HAND_SIZE; i++) {
+                    sum += scores[i];
+                    if (scores[i] > scores[best]) {
+                        best = i;
+                    }
+                }
+                if (best == bookPosition) {
+                    agreed++;
+                }
+                bookTotal += scores[bookPosition];
+                bestTotal += scores[best];
+                averageTotal += sum / HAND_SIZE;
+            }
+        } finally {
+            System.setOut(console);
+        }
+        System.out.printf("Checked %d hands with %d playouts per opening%n", hands, playouts);
+        System.out.printf("  Book opening is the playout best in %d hands (%.1f%%)%n", agreed, 100.0 * agreed / hands);
+        System.out.printf("  Mean score: book %.3f, playout best %.3f, average opening %.3f%n",
+                bookTotal / hands, bestTotal / hands, averageTotal / hands);
+    }
+
+    /**
+     * Relabels the suits of a hand so that the trump becomes suit 0 and the other suits
+     * are ordered by the ranks they hold (highest mask first).
+     *
+     * @param mask      The hand mask.
+     * @param trump     The index of the trump suit.
+     * @param suitOrder Filled with the real suit used for each reduced suit.
+     * @return The reduced hand mask.
+     */
+    private static long canonicalize(long mask, int trump, int[] suitOrder) {
+        int count = 1;
+        suitOrder[0] = trump;
+        for (int suit = 0; suit < Card.SUITS.length; suit++) {
+            if (suit == trump) {
+                continue;
+            }
+            // Insertion sort of the non-trump suits by their rank masks
+            long ranks = suitRanks(mask, suit);
+            int i = count++;
+            while (i > 1 && suitRanks(mask, suitOrder[i - 1]) < ranks) {
+                suitOrder[i] = suitOrder[i - 1];
+                i--;
+            }
+            suitOrder[i] = suit;
+        }
+
+        long canonical = 0L;
+        for (int i = 0; i < suitOrder.length; i++) {
+            canonical |= suitRanks(mask, suitOrder[i]) << (i * SUIT_BITS);
+        }
+        return canonical;
+    }
+
+    /**
+     * Extracts the ranks held in one suit of a mask.
+     */
+    private static long suitRanks(long mask, int suit) {
+        return (mask >>> (suit * SUIT_BITS)) & SUIT_MASK;
+    }
+
+    /**
+     * Computes the position of a six-card mask among all six-card masks in colex order.
+     */
+    private static long colexRank(long mask) {
+        long rank = 0;
+        int k = 1;
+        for (long cards = mask; cards != 0; cards &= cards - 1) {
+            rank += BINOMIAL[Long.numberOfTrailingZeros(cards)][k++];
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the next larger mask with the same number of bits set (Gosper's hack).
+     */
+    private static long nextCombination(long mask) {
+        long lowest = mask & -mask;
+        long ripple = mask + lowest;
+        return (((ripple ^ mask) >>> 2) / lowest) | ripple;
+    }
+
+    /**
+     * Finds the index of a suit name in {@link Card#SUITS}.
+     */
+    private static int suitIndex(String suit) {
+        for (int i = 0; i < Card.SUITS.length; i++) {
+            if (Card.SUITS[i].equals(suit)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the opening book offline, or checks its heuristic against playouts.
+     *
+     * @param args The output file (defaults to opening-book.bin), or --check followed by
+     *             the number of hands (default 200) and playouts per opening (default 200).
+     * @throws IOException If the book cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--check")) {
+            int hands = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            int playouts = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+            checkAgainstPlayouts(hands, playouts, 1L);
+            return;
+        }
+        Path file = Path.of(args.length > 0 ? args[0] : "opening-book.bin");
+        long start = System.nanoTime();
+        int hands = build(file);
+        System.out.println("Wrote " + hands + " reduced hands to " + file + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
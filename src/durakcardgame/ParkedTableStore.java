@@ -0,0 +1,211 @@
+package durakcardgame;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps idle tables outside the Java heap so that very many of them can wait for their
+ * players without adding to garbage collection work.
+ *
+ * Tables waiting for players are driven with {@link DurakGame#advance()}, which leaves them
+ * idle between moves. A parked table is written into a fixed-size slot of a direct buffer as
+ * the state at the start of its current round ({@link DurakGame#writeState(DataOutputStream)})
+ * followed by the moves played since and any moves submitted but not yet played, the same
+ * way the journal records a table, and its object graph is dropped. Hydrating the table
+ * restores the round-start state and queues the moves for replay, so the table continues
+ * exactly where it was parked, even in the middle of a round.
+ *
+ * Each slot carries a generation that changes whenever it is freed, so a handle to a table
+ * that was already hydrated is rejected instead of reaching the next table in its slot.
+ * Spectators are not kept; they must be attached again after hydration.
+ */
+public class ParkedTableStore {
+    private static final int SLOT_SIZE = 256; // Bytes per parked table, including the header
+    private static final int GENERATION = 0; // Offset of the slot's generation (int)
+    private static final int STATE_LENGTH = 4; // Offset of the state length (short); 0 marks a free slot
+    private static final int MOVE_COUNT = 6; // Offset of the number of moves played in the round (unsigned byte)
+    private static final int SUBMITTED_COUNT = 7; // Offset of the number of moves submitted but not played (unsigned byte)
+    private static final int TABLE_ID = 8; // Offset of the table's id in the journal (long)
+    private static final int JOURNALED = 16; // Offset of the flag telling whether the table is journaled (byte)
+    private static final int HEADER_SIZE = 17; // The state follows the header, then the played and submitted moves
+    private static final int MAX_MOVES = 255; // Largest move count the header can hold
+    private static final int SLOTS_PER_CHUNK = 1 << 16; // Slots allocated at a time (16 MB of memory)
+
+    private final TableJournal journal; // Journal that parked journaled tables are reattached to, or null
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>(); // Direct buffers holding the slots
+    private int[] freeSlots = new int[SLOTS_PER_CHUNK]; // Stack of slots that can be reused, grown as needed
+    private int freeCount = 0; // Number of entries in freeSlots
+    private int parkedCount = 0; // Number of tables currently parked
+
+    /**
+     * Creates a store for tables that are not journaled.
+     */
+    public ParkedTableStore() {
+        this(null);
+    }
+
+    /**
+     * Creates a store whose journaled tables are reattached to the given journal when they
+     * are hydrated, under the same table id.
+     *
+     * @param journal The journal recording the tables, or null if they are not journaled.
+     */
+    public ParkedTableStore(TableJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Parks a table. The game object should not be used afterwards.
+     *
+     * @param game The table to park.
+     * @return The handle to pass to {@link #hydrate(long)}.
+     * @throws IllegalStateException    If the table is being played, so its state is incomplete.
+     * @throws IllegalArgumentException If the table is recorded in a different journal, or its
+     *                                  state does not fit in a slot (for example because of very
+     *                                  long player names).
+     */
+    public synchronized long park(DurakGame game) {
+        if (game.isPlaying()) {
+            throw new IllegalStateException("Cannot park a table while it is being played");
+        }
+        if (game.getJournal() != null && game.getJournal() != journal) {
+            throw new IllegalArgumentException("The table is recorded in a journal this store does not reattach to");
+        }
+        byte[] state = game.getRoundStartState();
+        List<Integer> moves = game.getMovesSinceRoundStart();
+        List<Integer> submitted = game.getSubmittedMoves();
+        if (moves.size() > MAX_MOVES || submitted.size() > MAX_MOVES
+                || HEADER_SIZE + state.length + moves.size() + submitted.size() > SLOT_SIZE) {
+            throw new IllegalArgumentException("Table state of " + state.length + " bytes and "
+                    + (moves.size() + submitted.size()) + " moves does not fit in a slot");
+        }
+
+        if (freeCount == 0) {
+            addChunk();
+        }
+        int slot = freeSlots[--freeCount];
+        ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+        int offset = (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+        chunk.putShort(offset + STATE_LENGTH, (short) state.length);
+        chunk.put(offset + MOVE_COUNT, (byte) moves.size());
+        chunk.put(offset + SUBMITTED_COUNT, (byte) submitted.size());
+        chunk.put(offset + JOURNALED, (byte) (game.getJournal() != null ? 1 : 0));
+        chunk.putLong(offset + TABLE_ID, game.getTableId());
+        chunk.put(offset + HEADER_SIZE, state);
+        int position = offset + HEADER_SIZE + state.length;
+        for (List<Integer> list : List.of(moves, submitted)) {
+            for (int move : list) {
+                // Every index outside a hand plays the same way, so any move fits in a byte
+                chunk.put(position++, (byte) Math.max(-2, Math.min(move, Byte.MAX_VALUE)));
+            }
+        }
+        parkedCount++;
+        return (long) chunk.getInt(offset + GENERATION) << 32 | slot;
+    }
+
+    /**
+     * Restores a parked table as a live game and frees its slot. A journaled table is
+     * reattached to the journal, and the moves it had played in its current round are
+     * replayed when it is next played.
+     *
+     * @param handle The handle returned by {@link #park(DurakGame)}.
+     * @return The restored game.
+     * @throws IllegalArgumentException If no table is parked under the handle, including
+     *                                  when its table was already hydrated.
+     * @throws UncheckedIOException     If the slot cannot be decoded; the table stays parked.
+     */
+    public synchronized DurakGame hydrate(long handle) {
+        int slot = (int) handle;
+        int generation = (int) (handle >>> 32);
+        if (slot < 0 || slot >= chunks.size() * SLOTS_PER_CHUNK) {
+            throw new IllegalArgumentException("Unknown table handle: " + handle);
+        }
+        ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+        int offset = (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+        int length = chunk.getShort(offset + STATE_LENGTH);
+        if (length == 0 || chunk.getInt(offset + GENERATION) != generation) {
+            throw new IllegalArgumentException("No table parked under handle: " + handle);
+        }
+
+        byte[] state = new byte[length];
+        chunk.get(offset + HEADER_SIZE, state);
+        int position = offset + HEADER_SIZE + length;
+        List<Integer> moves = readMoves(chunk, position, chunk.get(offset + MOVE_COUNT) & 0xFF);
+        position += moves.size();
+        List<Integer> submitted = readMoves(chunk, position, chunk.get(offset + SUBMITTED_COUNT) & 0xFF);
+        DurakGame game;
+        try {
+            game = DurakGame.readState(new DataInputStream(new ByteArrayInputStream(state)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (chunk.get(offset + JOURNALED) != 0) {
+            game.resumeFromJournal(journal, chunk.getLong(offset + TABLE_ID), moves);
+        } else {
+            game.resumeRound(moves);
+        }
+        for (int move : submitted) {
+            game.submitMove(move);
+        }
+
+        // Only free the slot once the table has been restored
+        chunk.putShort(offset + STATE_LENGTH, (short) 0);
+        chunk.putInt(offset + GENERATION, generation + 1); // Invalidates the handle
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        parkedCount--;
+        return game;
+    }
+
+    /**
+     * Returns the number of tables currently parked.
+     *
+     * @return The parked table count.
+     */
+    public synchronized int getParkedCount() {
+        return parkedCount;
+    }
+
+    /**
+     * Returns the amount of memory reserved outside the heap for slots.
+     *
+     * @return The number of bytes reserved.
+     */
+    public synchronized long getReservedBytes() {
+        return (long) chunks.size() * SLOTS_PER_CHUNK * SLOT_SIZE;
+    }
+
+    /**
+     * Reads moves stored one byte each.
+     */
+    private static List<Integer> readMoves(ByteBuffer chunk, int position, int count) {
+        List<Integer> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add((int) chunk.get(position + i));
+        }
+        return moves;
+    }
+
+    /**
+     * Allocates another chunk of slots and pushes them on the free stack, lowest first on top.
+     */
+    private void addChunk() {
+        int first = chunks.size() * SLOTS_PER_CHUNK;
+        if (first > Integer.MAX_VALUE - SLOTS_PER_CHUNK) {
+            throw new IllegalStateException("Parked table store is full");
+        }
+        chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE));
+        for (int i = SLOTS_PER_CHUNK - 1; i >= 0; i--) {
+            freeSlots[freeCount++] = first + i;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package durakcardgame;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * A Durak game played entirely by computer players, used for simulations.
+ * Every player follows the same simple policy: attack with the cheapest card, keep
+ * attacking with cards matching the ranks on the table, and defend with the cheapest
+ * card that beats the attack. Games that run too long are stopped and counted as draws;
+ * this happens when the players left holding cards never sit next to each other, since
+ * the defence always passes to the next seat.
+ */
+public class SimulatedDurakGame extends DurakGame {
+    private static final int MAX_TURNS = 1000; // Turns after which a game is stopped as a draw
+    private static final int MAX_TABLE_CARDS = 12; // Six attacks and their defenses
+
+    private int turns = 0; // Turns started so far
+    private Card opening; // Card the first attack must be made with, or null to follow the policy
+
+    /**
+     * Deals a new simulated game.
+     *
+     * @param playerCount The number of players (2-6).
+     * @param seed        The seed for the shuffle; the same seed always plays the same game.
+     */
+    public SimulatedDurakGame(int playerCount, long seed) {
+        super("Simulation", playerNames(playerCount), new Random(seed));
+    }
+
+    /**
+     * Deals a simulated game from a deck in a chosen order and fixes the first attack.
+     * Used to play out opening attacks.
+     *
+     * @param playerCount The number of players (2-6).
+     * @param deck        The deck, top card first (see {@link DurakGame#DurakGame(String, String[], Deck)}).
+     * @param opening     The card the first attacker opens with; it must be in their hand.
+     */
+    SimulatedDurakGame(int playerCount, Deck deck, Card opening) {
+        super("Simulation", playerNames(playerCount), deck);
+        this.opening = opening;
+    }
+
+    /**
+     * Returns the number of turns the game took.
+     *
+     * @return The turn count.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Checks whether the game was stopped before anyone became the Durak.
+     *
+     * @return True if the game hit the turn limit.
+     */
+    public boolean isDraw() {
+        return turns >= MAX_TURNS && !super.isGameOver();
+    }
+
+    /**
+     * Counts the turn.
+     */
+    @Override
+    protected void onRoundStart() {
+        turns++;
+    }
+
+    /**
+     * Ends the game normally, or as a draw once it reaches the turn limit.
+     *
+     * @return True if the game has ended, otherwise false.
+     */
+    @Override
+    public boolean isGameOver() {
+        return super.isGameOver() || turns >= MAX_TURNS;
+    }
+
+    /**
+     * Opens with the cheapest card, then keeps attacking with cheap cards of a rank already on the table.
+     */
+    @Override
+    protected int chooseAttack(Scanner scanner, DurakPlayer attacker) {
+        if (opening != null) {
+            int index = attacker.getHand().indexOf(opening);
+            opening = null;
+            return index;
+        }
+        if (getTableCards().size() >= MAX_TABLE_CARDS) {
+            return -1;
+        }
+
+        ArrayList<Card> hand = attacker.getHand();
+        int best = -1;
+        for (int i = 0; i < hand.size(); i++) {
+            Card card = hand.get(i);
+            if (getTableCards().isEmpty() || isValidThrow(card)) {
+                if (best == -1 || cost(card) < cost(hand.get(best))) {
+                    best = i;
+                }
+            }
+        }
+        // Keep trumps rather than spend them on a follow-up attack
+        if (best != -1 && !getTableCards().isEmpty() && isTrump(hand.get(best))) {
+            return -1;
+        }
+        return best;
+    }
+
+    /**
+     * Beats the last attack with the cheapest card that can, or picks up.
+     */
+    @Override
+    protected int chooseDefense(Scanner scanner, DurakPlayer defender) {
+        Card attackCard = getTableCards().get(getTableCards().size() - 1);
+        ArrayList<Card> hand = defender.getHand();
+        int best = -1;
+        for (int i = 0; i < hand.size(); i++) {
+            Card card = hand.get(i);
+            if (isValidDefense(attackCard, card) && (best == -1 || cost(card) < cost(hand.get(best)))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Never adds cards to another player's attack.
+     */
+    @Override
+    protected int chooseThrow(Scanner scanner, DurakPlayer player) {
+        return -1;
+    }
+
+    /**
+     * Orders cards by how valuable they are to keep: trumps above everything else, then by rank.
+     */
+    private int cost(Card card) {
+        int rank = card.getDeckIndex() % Card.RANKS.length;
+        return isTrump(card) ? Card.RANKS.length + rank : rank;
+    }
+
+    /**
+     * Checks whether a card is of the trump suit.
+     */
+    private boolean isTrump(Card card) {
+        return card.getSuit().equals(getTrumpCard().getSuit());
+    }
+
+    /**
+     * Builds names for the simulated players.
+     */
+    private static String[] playerNames(int playerCount) {
+        String[] names = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            names[i] = "Bot " + (i + 1);
+        }
+        return names;
+    }
+}
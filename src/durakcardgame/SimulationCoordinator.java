@@ -0,0 +1,306 @@
+package durakcardgame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs a large simulation across several worker processes on the local machine.
+ *
+ * The job (a number of games for each table size, one seed per game) is cut into chunks
+ * that are dealt out evenly to the workers' queues up front. Workers talk to the
+ * coordinator over local sockets and take their next chunk from their own queue; a worker
+ * whose queue is empty steals from the back of the longest other queue. If a worker dies,
+ * the chunk it was playing is put back on its queue for the others to steal.
+ * Games are seeded, so a reassigned chunk produces the same results, and each chunk's
+ * statistics are merged exactly once.
+ */
+public class SimulationCoordinator {
+    static final byte CHUNK = 1; // Message sending a chunk to a worker
+    static final byte STOP = 2; // Message telling a worker there is no more work
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000; // Time allowed for workers to start and connect
+
+    private final int workerCount; // Number of worker processes to start
+    private final int chunkSize; // Games per chunk
+
+    private ArrayDeque<Chunk>[] queues; // Chunks waiting for each worker
+    private Chunk[] inFlight; // Chunk each worker is playing, or null
+    private boolean[] finished; // Chunks whose results have been merged, by chunk id
+    private int remainingChunks; // Chunks not yet finished
+    private int liveWorkers; // Workers still connected
+    private int lostWorkers; // Workers whose connection was lost before the job was done
+    private Map<Integer, SimulationStats> results; // Merged statistics by table size
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param workerCount The number of worker processes to start.
+     * @param chunkSize   The number of games handed to a worker at a time.
+     */
+    public SimulationCoordinator(int workerCount, int chunkSize) {
+        if (workerCount <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Worker count and chunk size must be positive");
+        }
+        this.workerCount = workerCount;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Plays the given number of games for each table size across the workers.
+     *
+     * @param gamesPerTableSize The number of games to play for each table size.
+     * @param playerCounts      The table sizes to simulate.
+     * @param firstSeed         The seed of the first game of each table size; the others use the following seeds.
+     * @return The merged statistics, keyed by table size.
+     * @throws IOException          If the workers cannot be started or none of them connect.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Map<Integer, SimulationStats> run(int gamesPerTableSize, int[] playerCounts, long firstSeed)
+            throws IOException, InterruptedException {
+        // Cut the job into chunks and deal them out to the worker queues
+        List<Chunk> chunks = new ArrayList<>();
+        for (int playerCount : playerCounts) {
+            for (int start = 0; start < gamesPerTableSize; start += chunkSize) {
+                int games = Math.min(chunkSize, gamesPerTableSize - start);
+                chunks.add(new Chunk(chunks.size(), playerCount, firstSeed + start, games));
+            }
+        }
+        synchronized (this) {
+            queues = new ArrayDeque[workerCount];
+            for (int w = 0; w < workerCount; w++) {
+                queues[w] = new ArrayDeque<>();
+            }
+            for (Chunk chunk : chunks) {
+                queues[chunk.id % workerCount].addLast(chunk);
+            }
+            inFlight = new Chunk[workerCount];
+            finished = new boolean[chunks.size()];
+            remainingChunks = chunks.size();
+            liveWorkers = 0;
+            lostWorkers = 0;
+            results = new TreeMap<>();
+            for (int playerCount : playerCounts) {
+                results.put(playerCount, new SimulationStats(playerCount));
+            }
+        }
+
+        List<Process> processes = new ArrayList<>();
+        List<Thread> handlers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, workerCount, InetAddress.getLoopbackAddress())) {
+            for (int w = 0; w < workerCount; w++) {
+                processes.add(startWorker(server.getLocalPort()));
+            }
+
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int w = 0; w < workerCount; w++) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    break; // Carry on with the workers that did connect
+                }
+                int workerId = w;
+                synchronized (this) {
+                    liveWorkers++;
+                }
+                Thread handler = new Thread(() -> serve(workerId, socket), "simulation-worker-" + w);
+                handler.start();
+                handlers.add(handler);
+            }
+            if (handlers.isEmpty()) {
+                throw new IOException("No simulation workers connected");
+            }
+
+            synchronized (this) {
+                while (remainingChunks > 0 && liveWorkers > 0) {
+                    wait();
+                }
+                if (remainingChunks > 0) {
+                    throw new IllegalStateException("All simulation workers were lost with "
+                            + remainingChunks + " chunks left");
+                }
+            }
+            for (Thread handler : handlers) {
+                handler.join();
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts a worker process running the same classes as this one.
+     */
+    private static Process startWorker(int port) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SimulationWorker.class.getName(), String.valueOf(port))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Feeds chunks to one worker and collects its results until the job is done
+     * or the worker's connection is lost.
+     */
+    private void serve(int workerId, Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                Chunk chunk = nextChunk(workerId);
+                if (chunk == null) {
+                    out.writeByte(STOP);
+                    out.flush();
+                    return;
+                }
+                out.writeByte(CHUNK);
+                out.writeInt(chunk.id);
+                out.writeInt(chunk.playerCount);
+                out.writeLong(chunk.firstSeed);
+                out.writeInt(chunk.games);
+                out.flush();
+
+                int chunkId = in.readInt();
+                SimulationStats stats = SimulationStats.read(in);
+                if (chunkId != chunk.id) {
+                    throw new IOException("Worker " + workerId + " answered chunk " + chunkId + " instead of " + chunk.id);
+                }
+                completeChunk(workerId, chunk, stats);
+            }
+        } catch (IOException | InterruptedException e) {
+            loseWorker(workerId, e);
+        }
+    }
+
+    /**
+     * Takes the next chunk for a worker: the front of its own queue, or else the back of the
+     * longest other queue. Waits while other workers still hold chunks that might come back.
+     *
+     * @return The chunk, or null once every chunk is finished.
+     */
+    private synchronized Chunk nextChunk(int workerId) throws InterruptedException {
+        while (remainingChunks > 0) {
+            Chunk chunk = queues[workerId].pollFirst();
+            if (chunk == null) {
+                int victim = -1;
+                for (int w = 0; w < workerCount; w++) {
+                    if (!queues[w].isEmpty() && (victim == -1 || queues[w].size() > queues[victim].size())) {
+                        victim = w;
+                    }
+                }
+                if (victim != -1) {
+                    chunk = queues[victim].pollLast();
+                }
+            }
+            if (chunk != null) {
+                inFlight[workerId] = chunk;
+                return chunk;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    /**
+     * Merges a chunk's statistics, unless another worker already finished the same chunk.
+     */
+    private synchronized void completeChunk(int workerId, Chunk chunk, SimulationStats stats) {
+        inFlight[workerId] = null;
+        if (!finished[chunk.id]) {
+            finished[chunk.id] = true;
+            results.get(chunk.playerCount).merge(stats);
+            remainingChunks--;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Puts a lost worker's chunk back on its queue, where the other workers will steal it.
+     */
+    private synchronized void loseWorker(int workerId, Exception cause) {
+        Chunk chunk = inFlight[workerId];
+        if (chunk != null) {
+            inFlight[workerId] = null;
+            queues[workerId].addFirst(chunk);
+            System.err.println("Lost simulation worker " + workerId + " (" + cause + "); reassigning chunk " + chunk.id);
+        }
+        liveWorkers--;
+        lostWorkers++;
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of chunks finished so far in the current or last run.
+     *
+     * @return The finished chunk count.
+     */
+    synchronized int getFinishedChunkCount() {
+        return finished == null ? 0 : finished.length - remainingChunks;
+    }
+
+    /**
+     * Returns the number of workers lost during the current or last run.
+     *
+     * @return The lost worker count.
+     */
+    synchronized int getLostWorkerCount() {
+        return lostWorkers;
+    }
+
+    /**
+     * A run of consecutive seeds for one table size.
+     */
+    private static class Chunk {
+        private final int id; // Position of the chunk in the job
+        private final int playerCount; // Number of players in each game
+        private final long firstSeed; // Seed of the first game
+        private final int games; // Number of games
+
+        private Chunk(int id, int playerCount, long firstSeed, int games) {
+            this.id = id;
+            this.playerCount = playerCount;
+            this.firstSeed = firstSeed;
+            this.games = games;
+        }
+    }
+
+    /**
+     * Runs a simulation of every table size from 2 to 6 players and prints the results.
+     *
+     * @param args The number of games per table size (default 10000), the number of
+     *             workers (default 4) and the chunk size (default 500).
+     * @throws Exception If the simulation fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        long start = System.nanoTime();
+        Map<Integer, SimulationStats> results = new SimulationCoordinator(workers, chunkSize)
+                .run(games, new int[]{2, 3, 4, 5, 6}, 1L);
+        for (SimulationStats stats : results.values()) {
+            System.out.println(stats);
+        }
+        System.out.println("Finished in " + (System.nanoTime() - start) / 1_000_000 + " ms with " + workers + " workers");
+    }
+}
@@ -0,0 +1,198 @@
+package durakcardgame;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Results of a batch of simulated games with the same number of players.
+ * Statistics from separate batches can be merged, so work split across many
+ * processes adds up to the same totals as running it in one.
+ */
+public class SimulationStats {
+    private static final int MAX_PLAYERS = 6; // Largest table size
+    private static final int LENGTH_BUCKETS = 50; // Number of game length histogram buckets
+    private static final int BUCKET_WIDTH = 10; // Turns covered by each histogram bucket
+
+    private final int playerCount; // Number of players in each game
+    private long games = 0; // Games played
+    private long draws = 0; // Games without a Durak: everyone ran out of cards, or the turn limit was hit
+    private final long[] durakBySeat = new long[MAX_PLAYERS]; // Times each seat was the Durak
+    private long firstAttackerDurak = 0; // Times the first attacker became the Durak
+    private final long[] lengthHistogram = new long[LENGTH_BUCKETS]; // Games by length in turns
+
+    /**
+     * Creates empty statistics for games with the given number of players.
+     *
+     * @param playerCount The number of players.
+     */
+    public SimulationStats(int playerCount) {
+        this.playerCount = playerCount;
+    }
+
+    /**
+     * Records the result of a finished game.
+     *
+     * @param game The finished game.
+     */
+    public void record(SimulatedDurakGame game) {
+        games++;
+        int bucket = Math.min(game.getTurns() / BUCKET_WIDTH, LENGTH_BUCKETS - 1);
+        lengthHistogram[bucket]++;
+
+        DurakPlayer durak = game.getDurak();
+        if (game.isDraw() || durak == null) {
+            draws++;
+            return;
+        }
+        int seat = game.getPlayers().indexOf(durak);
+        durakBySeat[seat]++;
+        if (seat == game.getFirstAttackerIndex()) {
+            firstAttackerDurak++;
+        }
+    }
+
+    /**
+     * Adds another batch's results to these.
+     *
+     * @param other Statistics for games with the same number of players.
+     */
+    public void merge(SimulationStats other) {
+        if (other.playerCount != playerCount) {
+            throw new IllegalArgumentException("Cannot merge " + other.playerCount + "-player results into "
+                    + playerCount + "-player results");
+        }
+        games += other.games;
+        draws += other.draws;
+        firstAttackerDurak += other.firstAttackerDurak;
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            durakBySeat[i] += other.durakBySeat[i];
+        }
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            lengthHistogram[i] += other.lengthHistogram[i];
+        }
+    }
+
+    /**
+     * Writes the statistics so another process can read them.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the statistics cannot be written.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(playerCount);
+        out.writeLong(games);
+        out.writeLong(draws);
+        out.writeLong(firstAttackerDurak);
+        for (long count : durakBySeat) {
+            out.writeLong(count);
+        }
+        for (long count : lengthHistogram) {
+            out.writeLong(count);
+        }
+    }
+
+    /**
+     * Reads statistics written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The stream to read from.
+     * @return The statistics read.
+     * @throws IOException If the statistics cannot be read.
+     */
+    public static SimulationStats read(DataInputStream in) throws IOException {
+        SimulationStats stats = new SimulationStats(in.readInt());
+        stats.games = in.readLong();
+        stats.draws = in.readLong();
+        stats.firstAttackerDurak = in.readLong();
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            stats.durakBySeat[i] = in.readLong();
+        }
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            stats.lengthHistogram[i] = in.readLong();
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the number of games recorded.
+     *
+     * @return The game count.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games that ended without a Durak, either because the last
+     * players ran out of cards together or because the game hit the turn limit.
+     *
+     * @return The draw count.
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns how many times the player in the given seat was the Durak.
+     *
+     * @param seat The seat index.
+     * @return The Durak count for the seat.
+     */
+    public long getDurakCount(int seat) {
+        return durakBySeat[seat];
+    }
+
+    /**
+     * Returns how many times the first attacker became the Durak.
+     *
+     * @return The first attacker's Durak count.
+     */
+    public long getFirstAttackerDurakCount() {
+        return firstAttackerDurak;
+    }
+
+    /**
+     * Returns the number of games whose length falls in a histogram bucket.
+     *
+     * @param bucket The bucket index; bucket i covers 10*i to 10*i+9 turns, and the last bucket is open-ended.
+     * @return The number of games in the bucket.
+     */
+    public long getLengthCount(int bucket) {
+        return lengthHistogram[bucket];
+    }
+
+    /**
+     * Summarizes the results: Durak rates per seat and for the first attacker, and the median game length.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        long decided = games - draws;
+        StringBuilder summary = new StringBuilder();
+        summary.append(playerCount).append(" players: ").append(games).append(" games, ")
+                .append(draws).append(" draws\n");
+        summary.append("  Durak rate by seat:");
+        for (int seat = 0; seat < playerCount; seat++) {
+            summary.append(String.format(" %.3f", rate(durakBySeat[seat], decided)));
+        }
+        summary.append(String.format("%n  First attacker Durak rate: %.3f (even chance %.3f)%n",
+                rate(firstAttackerDurak, decided), 1.0 / playerCount));
+
+        long seen = 0;
+        int median = 0;
+        while (median < LENGTH_BUCKETS - 1 && (seen += lengthHistogram[median]) * 2 < games) {
+            median++;
+        }
+        summary.append("  Median game length: ").append(median * BUCKET_WIDTH).append('-')
+                .append(median * BUCKET_WIDTH + BUCKET_WIDTH - 1).append(" turns");
+        return summary.toString();
+    }
+
+    /**
+     * Divides a count by a total, treating an empty total as a zero rate.
+     */
+    private static double rate(long count, long total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+}
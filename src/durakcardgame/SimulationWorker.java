@@ -0,0 +1,63 @@
+package durakcardgame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * A worker process of a simulation cluster. It connects to a
+ * {@link SimulationCoordinator} on the local machine, plays every chunk of games it is
+ * given and sends back the statistics, until the coordinator tells it to stop.
+ */
+public class SimulationWorker {
+
+    /**
+     * Runs the worker.
+     *
+     * @param args The coordinator's port.
+     * @throws IOException If the connection to the coordinator fails.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Games narrate every move
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (in.readByte() == SimulationCoordinator.CHUNK) {
+                int chunkId = in.readInt();
+                int playerCount = in.readInt();
+                long firstSeed = in.readLong();
+                int games = in.readInt();
+
+                out.writeInt(chunkId);
+                runChunk(playerCount, firstSeed, games).write(out);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Plays a chunk of games, one per seed, and collects their results.
+     *
+     * @param playerCount The number of players in each game.
+     * @param firstSeed   The seed of the first game; the others use the following seeds.
+     * @param games       The number of games to play.
+     * @return The statistics of the chunk.
+     */
+    public static SimulationStats runChunk(int playerCount, long firstSeed, int games) {
+        SimulationStats stats = new SimulationStats(playerCount);
+        for (int i = 0; i < games; i++) {
+            SimulatedDurakGame game = new SimulatedDurakGame(playerCount, firstSeed + i);
+            game.play();
+            stats.record(game);
+        }
+        return stats;
+    }
+}
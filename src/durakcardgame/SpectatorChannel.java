@@ -0,0 +1,129 @@
+package durakcardgame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the public events of one table to any number of spectators.
+ *
+ * Each event is encoded once into a read-only buffer and that same buffer is handed to
+ * every subscriber, so the cost of an event does not grow with the number of spectators
+ * beyond one queue insert each. Every subscriber has a small bounded queue; a spectator
+ * that falls behind loses its oldest events rather than slowing the table down. Since each
+ * event is a complete public view of the table, a slow spectator simply skips to a newer one,
+ * and a new spectator starts with the latest event instead of waiting for the next one.
+ */
+public class SpectatorChannel {
+    private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<>(); // Current spectators
+    private ByteBuffer latest; // The last event published, or null if there has been none
+
+    /**
+     * Adds a spectator to the table. The latest event, if any, is already queued for it.
+     *
+     * @param queueCapacity The number of undelivered events kept for this spectator.
+     * @return The spectator's subscription.
+     */
+    public synchronized Subscription subscribe(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        Subscription subscription = new Subscription(this, queueCapacity);
+        if (latest != null) {
+            subscription.offer(latest);
+        }
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Encodes an event once and queues it for every spectator. Publishing holds the same
+     * lock as {@link #subscribe(int)}, so a new spectator gets each event exactly once.
+     *
+     * @param event The public event text.
+     */
+    public synchronized void publish(String event) {
+        ByteBuffer shared = ByteBuffer.wrap(event.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        latest = shared;
+        for (Subscription subscription : subscribers) {
+            subscription.offer(shared);
+        }
+    }
+
+    /**
+     * Returns the number of spectators currently subscribed.
+     *
+     * @return The subscriber count.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * One spectator's queue of events waiting to be read.
+     */
+    public static class Subscription {
+        private final SpectatorChannel channel; // The channel this subscription belongs to
+        private final ByteBuffer[] queue; // Ring of shared event buffers
+        private int head = 0; // Index of the oldest queued event
+        private int size = 0; // Number of queued events
+        private long dropped = 0; // Events discarded because the spectator fell behind
+
+        /**
+         * Creates a subscription with the given queue capacity.
+         *
+         * @param channel       The channel being watched.
+         * @param queueCapacity The number of undelivered events to keep.
+         */
+        private Subscription(SpectatorChannel channel, int queueCapacity) {
+            this.channel = channel;
+            this.queue = new ByteBuffer[queueCapacity];
+        }
+
+        /**
+         * Takes the oldest undelivered event. The returned buffer shares its contents
+         * with every other spectator and cannot be modified.
+         *
+         * @return The event, or null if there is none waiting.
+         */
+        public synchronized ByteBuffer poll() {
+            if (size == 0) {
+                return null;
+            }
+            ByteBuffer event = queue[head];
+            queue[head] = null;
+            head = (head + 1) % queue.length;
+            size--;
+            return event.duplicate(); // Own position and limit over the shared bytes
+        }
+
+        /**
+         * Returns the number of events this spectator missed because it fell behind.
+         *
+         * @return The dropped event count.
+         */
+        public synchronized long getDroppedCount() {
+            return dropped;
+        }
+
+        /**
+         * Stops watching the table.
+         */
+        public void unsubscribe() {
+            channel.subscribers.remove(this);
+        }
+
+        /**
+         * Queues an event, discarding the oldest one if the queue is full.
+         */
+        private synchronized void offer(ByteBuffer event) {
+            if (size == queue.length) {
+                head = (head + 1) % queue.length;
+                size--;
+                dropped++;
+            }
+            queue[(head + size) % queue.length] = event;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package durakcardgame;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead log that keeps in-progress Durak tables durable across a crash.
+ *
+ * Each table writes a snapshot of its full state when it is attached and then every few
+ * rounds, and every move a player makes is appended before it is applied. Appends from all
+ * tables are group committed: a single writer thread writes whatever has queued up since
+ * the last flush and forces it to disk once, then wakes every waiting table.
+ *
+ * The log is kept in numbered segment files named after the journal's path. Every segment
+ * starts with a checkpoint: the latest snapshot and later moves of each unfinished table,
+ * which the journal keeps in memory as records are appended. Once a segment has grown by
+ * the segment size, the writer starts the next one with a new checkpoint and deletes the
+ * older segments, so the log stays bounded however long the server runs. A segment is
+ * written under a temporary name and renamed into place, so the newest segment always
+ * holds a complete checkpoint and is the only one recovery needs.
+ *
+ * On open, the newest segment is read as a stream, every unfinished table is rebuilt from
+ * its latest snapshot in parallel, and the moves logged after that snapshot are queued for
+ * replay. A new segment is then started from what those tables still need.
+ */
+public class TableJournal implements Closeable {
+    private static final byte SNAPSHOT = 1; // Record holding the full state of a table, starting with its format version
+    private static final byte MOVE = 2; // Record holding one move entered by a player
+    private static final byte FINISH = 3; // Record marking a table whose game is over
+    private static final int RECORD_HEADER = 13; // Type, table id and payload length
+    private static final int RECORD_TRAILER = 4; // Checksum of the header and payload
+    private static final long DEFAULT_SEGMENT_SIZE = 64L << 20; // Bytes appended before the next segment is started
+
+    private final Path file; // The journal's path; segments are named after it
+    private final long segmentSize; // Bytes appended to a segment before the next one is started
+    private final Map<Long, DurakGame> recoveredTables; // Tables rebuilt when the journal was opened
+    private final Map<Long, TableLog> liveTables; // Latest snapshot and later moves of each unfinished table
+    private final Thread writer; // Background thread that flushes batches of records
+    private FileChannel channel; // Open channel to the current segment, replaced by the writer thread
+    private long segment; // Number of the current segment
+    private long segmentAppended = 0; // Bytes appended to the current segment after its checkpoint
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(); // Records waiting to be written
+    private long appendedSequence = 0; // Number of records handed to the journal
+    private long durableSequence = 0; // Number of records forced to disk
+    private IOException failure; // First write error, reported to every later append
+    private boolean closed = false; // Set when the journal is closed
+
+    /**
+     * Opens the journal at the given path, recovering any unfinished tables it contains.
+     *
+     * @param file The journal's path; its segments are created beside it as needed.
+     * @throws IOException If the log cannot be read or a new segment cannot be written.
+     */
+    public TableJournal(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the journal at the given path with the given segment size.
+     *
+     * @param file        The journal's path; its segments are created beside it as needed.
+     * @param segmentSize The number of bytes appended to a segment before the next one is started.
+     * @throws IOException If the log cannot be read or a new segment cannot be written.
+     */
+    TableJournal(Path file, long segmentSize) throws IOException {
+        this.file = file;
+        this.segmentSize = segmentSize;
+        List<Long> segments = listSegments();
+        if (!segments.isEmpty()) {
+            this.liveTables = readSegment(segmentPath(segments.get(segments.size() - 1)));
+        } else if (Files.exists(file)) {
+            this.liveTables = readSegment(file); // A log written before segments were used
+        } else {
+            this.liveTables = new LinkedHashMap<>();
+        }
+        this.recoveredTables = rebuildTables(liveTables);
+
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        startSegment(segment, encodeCheckpoint(liveTables));
+        this.channel = FileChannel.open(segmentPath(segment), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        deleteSegmentsBefore(segment);
+        Files.deleteIfExists(file);
+        this.writer = new Thread(this::writeBatches, "table-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Returns the unfinished tables found when the journal was opened, keyed by table id.
+     * Each table is already attached to this journal and will replay its logged moves
+     * when play resumes.
+     *
+     * @return The recovered tables.
+     */
+    public Map<Long, DurakGame> getRecoveredTables() {
+        return Collections.unmodifiableMap(recoveredTables);
+    }
+
+    /**
+     * Appends a snapshot of a table and waits until it is on disk.
+     *
+     * @param tableId The id of the table.
+     * @param game    The table to snapshot.
+     */
+    public void appendSnapshot(long tableId, DurakGame game) {
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        try {
+            game.writeState(new DataOutputStream(state));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(SNAPSHOT, tableId, state.toByteArray());
+    }
+
+    /**
+     * Appends a move and waits until it is on disk.
+     *
+     * @param tableId The id of the table.
+     * @param move    The value entered by the player.
+     */
+    public void appendMove(long tableId, int move) {
+        append(MOVE, tableId, ByteBuffer.allocate(4).putInt(move).array());
+    }
+
+    /**
+     * Records that a table's game is over, so it is not recovered again.
+     *
+     * @param tableId The id of the table.
+     */
+    public void appendFinish(long tableId) {
+        append(FINISH, tableId, new byte[0]);
+    }
+
+    /**
+     * Flushes outstanding records and closes the log.
+     *
+     * @throws IOException If the last batch could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Queues a record for the writer thread and blocks until it has been forced to disk.
+     * The record is applied to the in-memory checkpoint in the same order it is queued.
+     */
+    private void append(byte type, long tableId, byte[] payload) {
+        byte[] record = encodeRecord(type, tableId, payload);
+        long sequence;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed: " + file);
+            }
+            apply(liveTables, type, tableId, payload);
+            pending.write(record, 0, record.length);
+            sequence = ++appendedSequence;
+            notifyAll();
+            while (durableSequence < sequence && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal", e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+        }
+    }
+
+    /**
+     * Writer thread loop: takes every record queued since the last flush, writes them
+     * with one call and forces them to disk with one sync. When the current segment is
+     * full, the batch is not written there; instead the next segment is started with a
+     * checkpoint taken together with the batch, which already includes its records.
+     */
+    private void writeBatches() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchSequence;
+            byte[] checkpoint = null;
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return; // Closed with nothing left to write
+                }
+                batch = pending;
+                batchSequence = appendedSequence;
+                pending = new ByteArrayOutputStream();
+                if (segmentAppended + batch.size() > segmentSize) {
+                    checkpoint = encodeCheckpoint(liveTables);
+                }
+            }
+
+            try {
+                if (checkpoint != null) {
+                    startSegment(segment + 1, checkpoint);
+                    channel.close();
+                    segment++;
+                    channel = FileChannel.open(segmentPath(segment), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    segmentAppended = 0;
+                    deleteSegmentsBefore(segment);
+                } else {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                    segmentAppended += batch.size();
+                }
+                synchronized (this) {
+                    durableSequence = batchSequence;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builds a record: type, table id, payload length, payload and a CRC32 of all of it.
+     */
+    private static byte[] encodeRecord(byte type, long tableId, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length + RECORD_TRAILER);
+        record.put(type).putLong(tableId).putInt(payload.length).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Applies a record to the latest snapshot and later moves kept for each unfinished table.
+     */
+    private static void apply(Map<Long, TableLog> tables, byte type, long tableId, byte[] payload) {
+        if (type == SNAPSHOT) {
+            TableLog table = new TableLog();
+            table.snapshot = payload;
+            tables.put(tableId, table);
+        } else if (type == MOVE && tables.containsKey(tableId)) {
+            tables.get(tableId).moves.add(ByteBuffer.wrap(payload).getInt());
+        } else if (type == FINISH) {
+            tables.remove(tableId);
+        }
+    }
+
+    /**
+     * Reads a segment as a stream and collects, for each unfinished table, its latest
+     * snapshot and the moves logged after it. Reading stops at the first torn or corrupt
+     * record, which can only be a write that was in flight when the process died.
+     */
+    private static Map<Long, TableLog> readSegment(Path segment) throws IOException {
+        Map<Long, TableLog> tables = new LinkedHashMap<>();
+        long remaining = Files.size(segment);
+        byte[] header = new byte[RECORD_HEADER];
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (remaining >= RECORD_HEADER + RECORD_TRAILER) {
+                in.readFully(header);
+                ByteBuffer fields = ByteBuffer.wrap(header);
+                byte type = fields.get();
+                long tableId = fields.getLong();
+                int length = fields.getInt();
+                remaining -= RECORD_HEADER + RECORD_TRAILER;
+                if (length < 0 || length > remaining) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                remaining -= length;
+                crc.reset();
+                crc.update(header);
+                crc.update(payload);
+                if (in.readInt() != (int) crc.getValue()) {
+                    break;
+                }
+                apply(tables, type, tableId, payload);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Rebuilds every logged table from its snapshot in parallel and queues its moves for replay.
+     * A table whose snapshot cannot be decoded is reported and skipped, so one bad table does
+     * not keep the others from recovering. Its records are still carried into new segments.
+     */
+    private Map<Long, DurakGame> rebuildTables(Map<Long, TableLog> logs) {
+        Map<Long, DurakGame> tables = new ConcurrentHashMap<>();
+        logs.entrySet().parallelStream().forEach(entry -> {
+            try {
+                DurakGame game = DurakGame.readState(
+                        new DataInputStream(new ByteArrayInputStream(entry.getValue().snapshot)));
+                game.resumeFromJournal(this, entry.getKey(), new ArrayList<>(entry.getValue().moves));
+                tables.put(entry.getKey(), game);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping table " + entry.getKey() + " in " + file
+                        + ": its snapshot cannot be read (" + e + ")");
+            }
+        });
+        return tables;
+    }
+
+    /**
+     * Encodes the latest snapshot and later moves of every unfinished table as records.
+     */
+    private static byte[] encodeCheckpoint(Map<Long, TableLog> tables) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (Map.Entry<Long, TableLog> entry : tables.entrySet()) {
+            records.writeBytes(encodeRecord(SNAPSHOT, entry.getKey(), entry.getValue().snapshot));
+            for (int move : entry.getValue().moves) {
+                records.writeBytes(encodeRecord(MOVE, entry.getKey(), ByteBuffer.allocate(4).putInt(move).array()));
+            }
+        }
+        return records.toByteArray();
+    }
+
+    /**
+     * Writes a new segment holding a checkpoint. It is written beside the others under a
+     * temporary name, moved into place, and the directory is synced so the rename itself
+     * survives a crash.
+     */
+    private void startSegment(long number, byte[] checkpoint) throws IOException {
+        Path segmentFile = segmentPath(number);
+        Path temporary = segmentFile.resolveSibling(segmentFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(checkpoint);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, segmentFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        try (FileChannel dir = FileChannel.open(directory(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open a directory; the rename is all they offer
+        }
+    }
+
+    /**
+     * Deletes the segments older than the given one; the newer segment's checkpoint holds
+     * everything they did.
+     */
+    private void deleteSegmentsBefore(long number) throws IOException {
+        for (long older : listSegments()) {
+            if (older < number) {
+                Files.deleteIfExists(segmentPath(older));
+            }
+        }
+    }
+
+    /**
+     * Lists the numbers of the journal's segments in increasing order.
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory(), prefix + "*")) {
+            for (Path entry : entries) {
+                String suffix = entry.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    segments.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Returns the path of a segment: the journal's path followed by the segment number.
+     */
+    private Path segmentPath(long number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    /**
+     * Returns the directory holding the segments.
+     */
+    private Path directory() {
+        return file.toAbsolutePath().getParent();
+    }
+
+    /**
+     * What the log holds for one table: its latest snapshot and the moves made since.
+     */
+    private static class TableLog {
+        private byte[] snapshot; // Encoded state of the table
+        private final List<Integer> moves = new ArrayList<>(); // Moves logged after the snapshot
+    }
+}
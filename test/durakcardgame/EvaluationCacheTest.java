@@ -0,0 +1,29 @@
+package durakcardgame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that keys are spread over the whole cache.
+ */
+public class EvaluationCacheTest {
+
+    /**
+     * Stores every combination of the six highest spades in an empty cache and checks
+     * that they are spread over enough sets for none of them to be evicted.
+     */
+    @Test
+    public void handsDifferingOnlyInHighCardsAreNotEvicted() {
+        EvaluationCache cache = new EvaluationCache(131_072);
+        long lowCards = 0b111111L; // The same six low cards in every hand
+        for (int high = 0; high < 64; high++) {
+            cache.put(lowCards | (long) high << 46, 0L, 0, 30, high);
+        }
+
+        assertEquals(0, cache.getEvictionCount());
+        for (int high = 0; high < 64; high++) {
+            assertEquals(high, cache.get(lowCards | (long) high << 46, 0L, 0, 30, -1));
+        }
+    }
+}
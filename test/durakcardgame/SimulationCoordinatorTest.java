@@ -0,0 +1,70 @@
+package durakcardgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that a simulation split across worker processes adds up to the same results as
+ * playing it in one process, even when a worker is killed in the middle of the run.
+ */
+public class SimulationCoordinatorTest {
+    private static final int GAMES = 1200; // Games per table size
+    private static final int CHUNK_SIZE = 40; // Games per chunk
+    private static final int[] PLAYER_COUNTS = {2, 3}; // Table sizes to simulate
+    private static final long FIRST_SEED = 42L; // Seed of the first game of each table size
+
+    /**
+     * Runs the simulation on three workers, kills one of them once a few chunks are done,
+     * and compares the merged statistics with a single-process run of the same seeds.
+     */
+    @Test(timeout = 120_000)
+    public void killedWorkerDoesNotChangeResults() throws Exception {
+        SimulationCoordinator coordinator = new SimulationCoordinator(3, CHUNK_SIZE);
+        Thread killer = new Thread(() -> {
+            try {
+                while (coordinator.getFinishedChunkCount() < 5) {
+                    Thread.sleep(10);
+                }
+                // The workers are this process's only children; SIGKILL one of them
+                ProcessHandle.current().children().findFirst().ifPresent(ProcessHandle::destroyForcibly);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        killer.start();
+        Map<Integer, SimulationStats> results = coordinator.run(GAMES, PLAYER_COUNTS, FIRST_SEED);
+        killer.join();
+
+        assertEquals("One worker should have been lost", 1, coordinator.getLostWorkerCount());
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Games narrate every move
+        try {
+            for (int playerCount : PLAYER_COUNTS) {
+                SimulationStats expected = SimulationWorker.runChunk(playerCount, FIRST_SEED, GAMES);
+                SimulationStats actual = results.get(playerCount);
+                assertEquals(GAMES, actual.getGames());
+                assertArrayEquals("Statistics for " + playerCount + " players", encode(expected), encode(actual));
+            }
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals(PLAYER_COUNTS.length * GAMES / CHUNK_SIZE, coordinator.getFinishedChunkCount());
+    }
+
+    /**
+     * Encodes statistics so that every counter can be compared at once.
+     */
+    private static byte[] encode(SimulationStats stats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        stats.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
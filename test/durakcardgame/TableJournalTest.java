@@ -0,0 +1,222 @@
+package durakcardgame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a journaled table interrupted in the middle of a round is recovered and
+ * finishes exactly as it would have without the interruption, also when the last record
+ * of the log was torn or corrupted by the crash.
+ */
+public class TableJournalTest {
+    private static final long DEAL_SEED = 9L; // Seed of the shuffled deck
+    private static final long TABLE_ID = 7L; // Id of the table in the journal
+    private static final int MOVES_BEFORE_CRASH = 40; // Moves played before the journal is abandoned
+    private static final long DEFAULT_SEGMENT_SIZE = 64L << 20; // Large enough that the log never rolls
+    private static final List<Integer> MOVES = movesFor(5L, 10_000); // Moves the players enter, in order
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PrintStream console; // Standard output, restored after each test
+    private Path path; // The journal's path
+    private int playedAtCrash; // Moves entered before the journal was abandoned
+
+    @Before
+    public void setUp() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Games narrate every move
+        path = folder.getRoot().toPath().resolve("tables.journal");
+    }
+
+    @After
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    /**
+     * Abandons the journal in the middle of a round and checks that the reopened table
+     * finishes in the same state as a table that was never interrupted.
+     */
+    @Test(timeout = 60_000)
+    public void recoveredTableFinishesLikeUninterruptedTable() throws IOException {
+        crashMidRound(DEFAULT_SEGMENT_SIZE);
+
+        assertArrayEquals(uninterruptedEndState(), finishRecovered(0));
+    }
+
+    /**
+     * Cuts the last move record short, as a write in flight during the crash would leave
+     * it, and checks that only that move is lost and entered again.
+     */
+    @Test(timeout = 60_000)
+    public void truncatedLastRecordIsDropped() throws IOException {
+        crashMidRound(DEFAULT_SEGMENT_SIZE);
+        try (FileChannel log = FileChannel.open(newestSegment(), StandardOpenOption.WRITE)) {
+            log.truncate(log.size() - 2);
+        }
+
+        assertArrayEquals(uninterruptedEndState(), finishRecovered(1));
+    }
+
+    /**
+     * Flips a bit in the checksum of the last move record and checks that only that move
+     * is lost and entered again.
+     */
+    @Test(timeout = 60_000)
+    public void recordWithBadChecksumIsDropped() throws IOException {
+        crashMidRound(DEFAULT_SEGMENT_SIZE);
+        try (FileChannel log = FileChannel.open(newestSegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            log.read(last, log.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 1));
+            last.rewind();
+            log.write(last, log.size() - 1);
+        }
+
+        assertArrayEquals(uninterruptedEndState(), finishRecovered(1));
+    }
+
+    /**
+     * Plays with segments small enough to roll every few moves and checks that old
+     * segments are deleted and the table still recovers from the newest one.
+     */
+    @Test(timeout = 60_000)
+    public void rolledSegmentsStillRecoverTheTable() throws IOException {
+        crashMidRound(300);
+
+        List<Path> segments = segments();
+        assertEquals("Only the newest segment should be kept", 1, segments.size());
+        assertNotEquals("The log should have rolled", path.resolveSibling(path.getFileName() + ".1"), segments.get(0));
+        assertArrayEquals(uninterruptedEndState(), finishRecovered(0));
+    }
+
+    /**
+     * Plays a journaled table until at least MOVES_BEFORE_CRASH moves are in and the table
+     * is waiting in the middle of a round, then abandons the journal without closing it.
+     */
+    private void crashMidRound(long segmentSize) throws IOException {
+        TableJournal journal = new TableJournal(path, segmentSize);
+        DurakGame game = newTable();
+        game.attachJournal(journal, TABLE_ID);
+        int played = 0;
+        assertFalse(game.advance());
+        while (played < MOVES_BEFORE_CRASH || game.getMovesSinceRoundStart().isEmpty()) {
+            game.submitMove(MOVES.get(played++));
+            assertFalse("The game ended before the crash", game.advance());
+        }
+        // The journal is not closed, as if the process had died here
+        playedAtCrash = played;
+    }
+
+    /**
+     * Reopens the journal, checks that the recovered table replays the moves entered since
+     * its last snapshot except the given number of lost ones, enters those again to finish
+     * the table, and checks that a finished table is not recovered again.
+     *
+     * @return The state of the finished table and the number of moves entered.
+     */
+    private byte[] finishRecovered(int lostMoves) throws IOException {
+        byte[] endState;
+        try (TableJournal journal = new TableJournal(path)) {
+            DurakGame game = journal.getRecoveredTables().get(TABLE_ID);
+            assertNotNull("The table should have been recovered", game);
+            assertFalse(game.advance());
+            int nextMove = playedAtCrash - lostMoves;
+            List<Integer> replayed = game.getMovesSinceRoundStart();
+            assertTrue("The table should replay the interrupted round", replayed.size() > lostMoves);
+            assertEquals(MOVES.subList(nextMove - replayed.size(), nextMove), replayed);
+            endState = finish(game, nextMove);
+        }
+        try (TableJournal journal = new TableJournal(path)) {
+            assertTrue(journal.getRecoveredTables().isEmpty());
+        }
+        return endState;
+    }
+
+    /**
+     * Plays the same table and moves without a journal or interruption.
+     */
+    private static byte[] uninterruptedEndState() throws IOException {
+        return finish(newTable(), 0);
+    }
+
+    /**
+     * Plays a table to the end with the moves from the given position on.
+     *
+     * @return The state of the finished table followed by the number of moves entered, so a
+     *         move replayed or entered twice shows up even if the end state happens to match.
+     */
+    private static byte[] finish(DurakGame game, int nextMove) throws IOException {
+        while (!game.advance()) {
+            assertTrue("The game did not end", nextMove < MOVES.size());
+            game.submitMove(MOVES.get(nextMove++));
+        }
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(state);
+        game.writeState(out);
+        out.writeInt(nextMove);
+        return state.toByteArray();
+    }
+
+    private static DurakGame newTable() {
+        return new DurakGame("Table", new String[]{"Alice", "Bob"}, new Random(DEAL_SEED));
+    }
+
+    /**
+     * Generates moves: mostly the first card, sometimes another card or -1 to take or pass.
+     */
+    private static List<Integer> movesFor(long seed, int count) {
+        Random random = new Random(seed);
+        List<Integer> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(random.nextInt(10) < 7 ? 0 : random.nextInt(7) - 1);
+        }
+        return moves;
+    }
+
+    /**
+     * Lists the journal's segment files.
+     */
+    private List<Path> segments() throws IOException {
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(path.getParent())) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the segment the journal was last writing to.
+     */
+    private Path newestSegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+}